@@ -0,0 +1,66 @@
+package creational;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs a benchmark class at 1, 2, 4 and N (available processors) threads and writes
+ * the results into benchmarks/results so they can be checked in and diffed between releases
+ *
+ * usage: java -cp target/benchmarks.jar creational.BenchmarkRunner [benchmark-regex] [report-name]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, java.io.IOException {
+        String include = args.length > 0 ? args[0] : SingletonBenchmark.class.getSimpleName();
+        String report = args.length > 1 ? args[1] : "singleton";
+        Path resultDir = Paths.get(System.getProperty("results.dir", "results"));
+        Files.createDirectories(resultDir);
+
+        Map<Integer, Collection<RunResult>> results = new LinkedHashMap<>();
+        for (int threads : threadCounts()) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultDir.resolve(report + "-" + threads + "t.json").toString())
+                    .build();
+            results.put(threads, new Runner(options).run());
+        }
+        writeReport(resultDir.resolve(report + ".txt"), results);
+    }
+
+    static int[] threadCounts() {
+        int n = Runtime.getRuntime().availableProcessors();
+        return n > 4 ? new int[]{1, 2, 4, n} : new int[]{1, 2, 4};
+    }
+
+    //plain text table per thread count, stable layout so that two runs diff line by line
+    private static void writeReport(Path file, Map<Integer, Collection<RunResult>> results) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(file.toFile())) {
+            out.println("# jvm: " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version"));
+            out.println("# cpus: " + Runtime.getRuntime().availableProcessors());
+            out.println("# os: " + System.getProperty("os.name") + " " + System.getProperty("os.version")
+                    + " " + System.getProperty("os.arch"));
+            for (Map.Entry<Integer, Collection<RunResult>> run : results.entrySet()) {
+                out.println();
+                out.println("# threads: " + run.getKey());
+                ResultFormatFactory.getInstance(ResultFormatType.TEXT, out).writeOut(run.getValue());
+            }
+        }
+    }
+}
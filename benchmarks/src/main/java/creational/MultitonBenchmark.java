@@ -0,0 +1,70 @@
+package creational;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyed lookup of per-key instances: Multiton vs a naive synchronized map
+ * Keys are pre-registered in setup, so this is the steady state lookup path
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class MultitonBenchmark {
+
+    @Param({"1000", "10000"})
+    private int keyCount;
+
+    private String[] keys;
+    private Multiton<String, Object> multiton;
+    private Multiton<String, Object> boundedMultiton;
+    private Map<String, Object> synchronizedMap;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setup() {
+        keys = new String[keyCount];
+        multiton = Multiton.of(key -> new Object());
+        boundedMultiton = Multiton.bounded(key -> new Object(), keyCount, null);
+        synchronizedMap = Collections.synchronizedMap(new HashMap<>());
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "tenant-" + i;
+            multiton.getInstance(keys[i]);
+            boundedMultiton.getInstance(keys[i]);
+            synchronizedMap.put(keys[i], new Object());
+        }
+    }
+
+    private String nextKey(Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = i + 1 == keys.length ? 0 : i + 1;
+        return keys[i];
+    }
+
+    @Benchmark
+    public Object multiton(Cursor cursor) {
+        return multiton.getInstance(nextKey(cursor));
+    }
+
+    @Benchmark
+    public Object boundedMultiton(Cursor cursor) {
+        return boundedMultiton.getInstance(nextKey(cursor));
+    }
+
+    @Benchmark
+    public Object synchronizedMap(Cursor cursor) {
+        return synchronizedMap.computeIfAbsent(nextKey(cursor), key -> new Object());
+    }
+}
@@ -0,0 +1,55 @@
+package creational;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Singleton.ScopedSingleton, which holds its binding in a ThreadLocal, against a real
+ * java.lang.ScopedValue binding of the same object: entering a scope, and reads inside one
+ *
+ * ScopedValue is a preview API in JDK 21, the module compiles with --enable-preview and only this
+ * class uses it, so only its forks run with the flag
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class ScopedValueBenchmark {
+
+    private static final int SCOPED_GETS = 100; //per scope, the *Entry benchmarks have the cost of entering one
+    private static final ScopedValue<Object> BOUND = ScopedValue.newInstance();
+
+    @Benchmark
+    @OperationsPerInvocation(SCOPED_GETS)
+    public void threadLocalScope(Blackhole blackhole) {
+        Singleton.ScopedSingleton.runScoped(() -> {
+            for (int i = 0; i < SCOPED_GETS; i++) {
+                blackhole.consume(Singleton.ScopedSingleton.getInstance());
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCOPED_GETS)
+    public void scopedValue(Blackhole blackhole) {
+        ScopedValue.runWhere(BOUND, new Object(), () -> {
+            for (int i = 0; i < SCOPED_GETS; i++) {
+                blackhole.consume(BOUND.get());
+            }
+        });
+    }
+
+    @Benchmark
+    public Object threadLocalEntry() {
+        return Singleton.ScopedSingleton.callScoped(Singleton.ScopedSingleton::getInstance); //bind, get, unbind
+    }
+
+    @Benchmark
+    public Object scopedValueEntry() throws Exception {
+        return ScopedValue.callWhere(BOUND, new Object(), BOUND::get);
+    }
+}
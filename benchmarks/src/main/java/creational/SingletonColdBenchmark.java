@@ -0,0 +1,69 @@
+package creational;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First call cost of every Singleton variant, i.e. class loading + static initialisation + creation
+ * Each fork is a fresh JVM which makes exactly one call, so nothing is warmed up or already initialised
+ * The *ClassInit benchmarks only load and initialise the class, without calling getInstance()
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1, batchSize = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class SingletonColdBenchmark {
+
+    @Benchmark
+    public Singleton.EagerSingleton eager() {
+        return Singleton.EagerSingleton.getInstance();
+    }
+
+    @Benchmark
+    public Singleton.ThreadSafeSingleton threadSafe() {
+        return Singleton.ThreadSafeSingleton.getInstance();
+    }
+
+    @Benchmark
+    public Singleton.DoubleCheckLockSingleton doubleCheckLock() {
+        return Singleton.DoubleCheckLockSingleton.getInstance();
+    }
+
+    @Benchmark
+    public Singleton.BillPughSingleton billPugh() {
+        return Singleton.BillPughSingleton.getInstance();
+    }
+
+    @Benchmark
+    public Singleton.EnumSingleton enumSingleton() {
+        return Singleton.EnumSingleton.UNIQUE_INSTANCE;
+    }
+
+    @Benchmark
+    public Object lazy() {
+        return Lazy.of(Object::new).get();
+    }
+
+    @Benchmark
+    public Class<?> eagerClassInit() throws ClassNotFoundException {
+        return Class.forName("creational.Singleton$EagerSingleton"); //creates the instance as well
+    }
+
+    @Benchmark
+    public Class<?> doubleCheckLockClassInit() throws ClassNotFoundException {
+        return Class.forName("creational.Singleton$DoubleCheckLockSingleton");
+    }
+
+    @Benchmark
+    public Class<?> billPughClassInit() throws ClassNotFoundException {
+        return Class.forName("creational.Singleton$BillPughSingleton"); //holder is not initialised yet
+    }
+
+    @Benchmark
+    public Class<?> enumClassInit() throws ClassNotFoundException {
+        return Class.forName("creational.Singleton$EnumSingleton"); //creates the constant as well
+    }
+}
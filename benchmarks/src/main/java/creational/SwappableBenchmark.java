@@ -0,0 +1,87 @@
+package creational;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read cost of a Swappable singleton while a writer swaps it continuously, next to the same reads
+ * with no writer and to a read-write lock protected reference doing the same job
+ * Each group runs 3 reader threads and, where present, 1 writer thread swapping as fast as it can
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Group)
+public class SwappableBenchmark {
+
+    private final Swappable<Object> holder = Swappable.of(new Object());
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Object locked = new Object();
+
+    @Benchmark
+    @Group("quiet")
+    @GroupThreads(3)
+    public Object quietGet() {
+        return holder.get(); //baseline, nothing is swapped
+    }
+
+    @Benchmark
+    @Group("swapping")
+    @GroupThreads(3)
+    public Object swappingGet() {
+        return holder.get(); //acquire load of a line the writer keeps invalidating
+    }
+
+    @Benchmark
+    @Group("swapping")
+    @GroupThreads(1)
+    public Object swappingWriter() {
+        return holder.swap(new Object());
+    }
+
+    @Benchmark
+    @Group("swappingTracked")
+    @GroupThreads(3)
+    public int swappingTrackedRead() {
+        return holder.read(Object::hashCode); //tracked so the writer can retire the old instance
+    }
+
+    @Benchmark
+    @Group("swappingTracked")
+    @GroupThreads(1)
+    public Object swappingTrackedWriter() {
+        return holder.swapAndRetire(new Object(), old -> {
+        });
+    }
+
+    @Benchmark
+    @Group("readWriteLock")
+    @GroupThreads(3)
+    public Object readWriteLockGet() {
+        lock.readLock().lock();
+        try {
+            return locked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Benchmark
+    @Group("readWriteLock")
+    @GroupThreads(1)
+    public Object readWriteLockWriter() {
+        Object next = new Object();
+        lock.writeLock().lock();
+        try {
+            Object previous = locked;
+            locked = next;
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
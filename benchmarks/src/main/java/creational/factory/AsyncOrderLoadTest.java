@@ -0,0 +1,81 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of orderPizzaAsync: fires N orders whose bake() blocks for the oven time and reports
+ * the peak number of orders in flight at the same time and the overall order rate
+ *
+ * usage: java -cp target/benchmarks.jar creational.factory.AsyncOrderLoadTest [orders] [oven-millis]
+ */
+public class AsyncOrderLoadTest {
+
+    private static final AtomicInteger IN_OVEN = new AtomicInteger();
+    private static final AtomicInteger PEAK_IN_OVEN = new AtomicInteger();
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        long ovenMillis = args.length > 1 ? Long.parseLong(args[1]) : 2_000;
+
+        EventSinks.use(EventSink.NO_OP); //lifecycle output is not under test
+        BasePizzaStore store = new OvenStore(ovenMillis);
+
+        long start = System.nanoTime();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[orders];
+        for (int i = 0; i < orders; i++) {
+            futures[i] = store.orderPizzaAsync("cheese");
+        }
+        CompletableFuture.allOf(futures).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("orders: %d, oven time: %d ms%n", orders, ovenMillis);
+        System.out.printf("peak orders in flight: %d%n", PEAK_IN_OVEN.get());
+        System.out.printf("elapsed: %.2f s, %.0f orders/s%n", seconds, orders / seconds);
+    }
+
+    static final class OvenStore extends BasePizzaStore {
+        private final long ovenMillis;
+
+        OvenStore(long ovenMillis) {
+            this.ovenMillis = ovenMillis;
+        }
+
+        @Override
+        public Pizza getPizza(String type) {
+            return new OvenPizza(ovenMillis);
+        }
+    }
+
+    static final class OvenPizza extends Pizza {
+        private final long ovenMillis;
+
+        OvenPizza(long ovenMillis) {
+            this.ovenMillis = ovenMillis;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public String getType() {
+            return "oven";
+        }
+
+        @Override
+        public void bake() {
+            PEAK_IN_OVEN.accumulateAndGet(IN_OVEN.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(ovenMillis); //waiting for the oven, a virtual thread unmounts here
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                IN_OVEN.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import creational.RingBufferEventSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multithreaded orderPizza throughput with each lifecycle event sink:
+ * console is the old synchronized System.out.println, ringBuffer the default asynchronous sink
+ * and noOp the floor. Both console and ringBuffer write to a discarding stream so only the
+ * cost on the order path is compared, not the terminal
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class EventSinkBenchmark {
+
+    @Param({"console", "ringBuffer", "noOp"})
+    private String sink;
+
+    private PrintStream console;
+    private RingBufferEventSink ringBuffer;
+    private BasePizzaStore store;
+
+    @Setup
+    public void setup() {
+        console = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        switch (sink) {
+            case "console":
+                System.setOut(discard);
+                EventSinks.use(EventSink.console());
+                break;
+            case "ringBuffer":
+                ringBuffer = new RingBufferEventSink(discard, 1 << 16);
+                EventSinks.use(ringBuffer);
+                break;
+            default:
+                EventSinks.use(EventSink.NO_OP);
+        }
+        store = new PunePizzaStore();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+        if (ringBuffer != null) {
+            ringBuffer.close();
+        }
+    }
+
+    @Benchmark
+    public Pizza orderPizza() {
+        return store.orderPizza("cheese");
+    }
+}
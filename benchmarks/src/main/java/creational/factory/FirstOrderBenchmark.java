@@ -0,0 +1,89 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to the first order in a fresh JVM through each creational structure
+ * cold: the store is only constructed, the first order loads and initialises everything it needs
+ * preInitialized: preInitialize() ran at boot, its own cost is measured by PreInitializeBenchmark
+ *
+ * Every benchmark has its own state which builds only the store it measures, so the classes another
+ * structure shares with it (Pizza, EventSinks, ...) are not loaded by a store nobody orders from
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1, batchSize = 1)
+@Fork(20)
+public class FirstOrderBenchmark {
+
+    @State(Scope.Benchmark)
+    public abstract static class Store {
+
+        @Param({"cold", "preInitialized"})
+        private String boot;
+
+        @Setup
+        public void setup() {
+            EventSinks.use(EventSink.NO_OP);
+            open(boot.equals("preInitialized"));
+        }
+
+        abstract void open(boolean preInitialize);
+    }
+
+    public static class SimpleFactoryStore extends Store {
+        private PizzaStore store;
+
+        @Override
+        void open(boolean preInitialize) {
+            store = new PizzaStore(new PizzaStoreFactory());
+            if (preInitialize) {
+                store.preInitialize();
+            }
+        }
+    }
+
+    public static class FactoryMethodStore extends Store {
+        private BasePizzaStore store;
+
+        @Override
+        void open(boolean preInitialize) {
+            store = new PunePizzaStore();
+            if (preInitialize) {
+                store.preInitialize();
+            }
+        }
+    }
+
+    public static class AbstractFactoryStore extends Store {
+        private BasePizzaStore store;
+
+        @Override
+        void open(boolean preInitialize) {
+            store = new MumbaiPizzaStore();
+            if (preInitialize) {
+                store.preInitialize();
+            }
+        }
+    }
+
+    @Benchmark
+    public Pizza simpleFactory(SimpleFactoryStore state) {
+        return state.store.orderPizza("cheese");
+    }
+
+    @Benchmark
+    public Pizza factoryMethod(FactoryMethodStore state) {
+        return state.store.orderPizza("tandoori");
+    }
+
+    @Benchmark
+    public Pizza abstractFactory(AbstractFactoryStore state) {
+        return state.store.orderPizza("cheese");
+    }
+}
@@ -0,0 +1,43 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MumbaiCheesePizza.prepare() with a new ingredient factory and new ingredients per order (what
+ * MumbaiPizzaStore used to do) vs the shared caching factory of the region
+ * Run with -prof gc and compare gc.alloc.rate.norm (bytes/op)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class IngredientCacheBenchmark {
+
+    private PizzaIngredientFactory cachedFactory;
+
+    @Setup
+    public void setup() {
+        EventSinks.use(EventSink.NO_OP);
+        cachedFactory = PizzaIngredientFactories.shared().forRegion("mumbai");
+    }
+
+    @Benchmark
+    public Pizza factoryPerOrder() {
+        Pizza pizza = new MumbaiCheesePizza(new MumbaiPizzaIngredientFactory());
+        pizza.prepare();
+        return pizza;
+    }
+
+    @Benchmark
+    public Pizza cachedFactory() {
+        Pizza pizza = new MumbaiCheesePizza(cachedFactory);
+        pizza.prepare();
+        return pizza;
+    }
+}
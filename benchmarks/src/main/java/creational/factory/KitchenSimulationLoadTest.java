@@ -0,0 +1,49 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+
+import java.time.Duration;
+
+/**
+ * Simulated orders per wall clock second of KitchenSimulation: a day of orders across many stores,
+ * timing only and with the real Pune lifecycle, single threaded and partitioned over all cores
+ *
+ * usage: java -cp target/benchmarks.jar creational.factory.KitchenSimulationLoadTest [stores] [orders-per-hour]
+ */
+public class KitchenSimulationLoadTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        int stores = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        double ordersPerHour = args.length > 1 ? Double.parseDouble(args[1]) : 60;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        EventSinks.use(EventSink.NO_OP); //lifecycle output is not under test
+        KitchenSimulation timing = simulation(stores, ordersPerHour, false);
+        KitchenSimulation lifecycle = simulation(stores, ordersPerHour, true);
+        for (int round = 0; round < 3; round++) { //the first rounds warm up the JIT
+            System.out.println("timing, 1 thread:       " + timing.run());
+            System.out.println("timing, " + threads + " threads:     " + timing.runParallel(threads));
+            System.out.println("lifecycle, 1 thread:    " + lifecycle.run());
+            System.out.println("lifecycle, " + threads + " threads:  " + lifecycle.runParallel(threads));
+        }
+    }
+
+    private static KitchenSimulation simulation(int stores, double ordersPerHour, boolean lifecycle) {
+        KitchenSimulation simulation = new KitchenSimulation()
+                .stage(Kitchen.Stage.PREPARE, Duration.ofMinutes(4), 6)
+                .ovenCapacity(40)
+                .openFor(Duration.ofHours(24))
+                .mix("cheese", 6)
+                .mix("tandoori", 3)
+                .mix("extravaganza", 1);
+        for (int i = 0; i < stores; i++) {
+            if (lifecycle) {
+                simulation.store("pune-" + i, ordersPerHour, new PunePizzaStore());
+            } else {
+                simulation.store("store-" + i, ordersPerHour);
+            }
+        }
+        return simulation;
+    }
+}
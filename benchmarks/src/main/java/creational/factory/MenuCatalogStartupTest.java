@@ -0,0 +1,56 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Startup cost of MenuCatalog as the catalog grows: compiles catalogs of 100 up to a million regions,
+ * then times open() and the first order of one region and reports the heap the process holds after it
+ * Both should stay flat, only the file grows with the regions
+ *
+ * usage: java -cp target/benchmarks.jar creational.factory.MenuCatalogStartupTest [max-regions]
+ */
+public class MenuCatalogStartupTest {
+
+    public static void main(String[] args) throws IOException {
+        int maxRegions = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        EventSinks.use(EventSink.NO_OP);
+        Path dir = Files.createTempDirectory("menu-catalog");
+        for (int regions = 100; regions <= maxRegions; regions *= 10) {
+            Path source = dir.resolve("menus-" + regions + ".txt");
+            Path catalog = dir.resolve("menus-" + regions + ".catalog");
+            write(source, regions);
+            MenuCatalogCompiler.compile(source, catalog);
+
+            System.gc();
+            long heapBefore = usedHeap();
+            long start = System.nanoTime();
+            MenuCatalog menus = MenuCatalog.open(catalog);
+            long opened = System.nanoTime();
+            menus.create("region-" + (regions - 1), "tandoori");
+            long ordered = System.nanoTime();
+            System.gc();
+            System.out.printf("%,9d regions %,12d bytes  open %,8.1f us  first order %,8.1f us  heap %+,d bytes%n",
+                    regions, Files.size(catalog), (opened - start) / 1e3, (ordered - opened) / 1e3,
+                    usedHeap() - heapBefore);
+        }
+    }
+
+    private static void write(Path source, int regions) throws IOException {
+        StringBuilder menus = new StringBuilder();
+        for (int i = 0; i < regions; i++) {
+            menus.append("region-").append(i).append(" cheese creational.factory.MumbaiCheesePizza mumbai\n")
+                    .append("region-").append(i).append(" tandoori creational.factory.PuneTandooriPizza -\n");
+        }
+        Files.writeString(source, menus);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,59 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * orderPizza with and without OrderMetrics, run it with -t 1 and -t max to see the overhead
+ * with and without contention on the histograms
+ * Lifecycle events go to EventSink.NO_OP so the recording cost is not hidden behind output
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+
+    private static final String[] ORDERS = {"cheese", "extravaganza", "tandoori"};
+
+    private BasePizzaStore store;
+    private BasePizzaStore instrumentedStore;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        String nextOrder() {
+            int i = next;
+            next = i + 1 == ORDERS.length ? 0 : i + 1;
+            return ORDERS[i];
+        }
+    }
+
+    @Setup
+    public void setup() {
+        EventSinks.use(EventSink.NO_OP);
+        store = new PunePizzaStore();
+        instrumentedStore = new PunePizzaStore().enableMetrics("benchmark");
+    }
+
+    @TearDown
+    public void tearDown() {
+        instrumentedStore.disableMetrics();
+    }
+
+    @Benchmark
+    public Pizza uninstrumented(Cursor cursor) {
+        return store.orderPizza(cursor.nextOrder());
+    }
+
+    @Benchmark
+    public Pizza instrumented(Cursor cursor) {
+        return instrumentedStore.orderPizza(cursor.nextOrder());
+    }
+}
@@ -0,0 +1,65 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Saturation curve of a store under open-loop load: orders at increasing fixed rates against cooks
+ * kept busy for a fixed CPU time per order, so capacity is cooks / bake time. Past capacity the achieved
+ * rate flattens and latency from the intended send time climbs while service time stays flat
+ *
+ * usage: java -cp target/benchmarks.jar creational.factory.OpenLoopLoadTest [cooks] [bake-micros] [step-seconds]
+ */
+public class OpenLoopLoadTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        int cooks = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        long bakeMicros = args.length > 1 ? Long.parseLong(args[1]) : 200;
+        long stepSeconds = args.length > 2 ? Long.parseLong(args[2]) : 3;
+
+        EventSinks.use(EventSink.NO_OP); //lifecycle output is not under test
+        BasePizzaStore store = new BusyOvenStore(bakeMicros);
+        double capacity = cooks * 1e6 / bakeMicros;
+        double[] rates = new double[8];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = capacity * (i + 1) / 6; //from well below to a third above capacity
+        }
+        LoadGenerator generator = new LoadGenerator(store::orderPizza)
+                .mix("cheese", 6)
+                .mix("tandoori", 3)
+                .mix("extravaganza", 1)
+                .cooks(cooks);
+        generator.run(capacity / 2, Duration.ofSeconds(1)); //warm up
+
+        System.out.printf("cooks: %d, bake: %d us, capacity: ~%.0f orders/s%n", cooks, bakeMicros, capacity);
+        List<LoadReport> curve = generator.saturationCurve(rates, Duration.ofSeconds(stepSeconds));
+        System.out.println(LoadReport.header());
+        curve.forEach(System.out::println);
+    }
+
+    static final class BusyOvenStore extends BasePizzaStore {
+        private final long bakeNanos;
+
+        BusyOvenStore(long bakeMicros) {
+            this.bakeNanos = bakeMicros * 1_000;
+        }
+
+        @Override
+        public Pizza getPizza(String type) {
+            return PunePizzaTypes.create(type);
+        }
+
+        @Override
+        public Pizza orderPizza(String type) {
+            Pizza pizza = super.orderPizza(type);
+            long until = System.nanoTime() + bakeNanos;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait(); //the oven keeps the cook busy
+            }
+            return pizza;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Orders in BAKE by type" over a million tracked orders: OrderBook column scan vs a loop over one
+ * object per order (see OrderBookFootprint for the memory side of the same comparison)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class OrderBookBenchmark {
+
+    private static final String[] ORDERS = {"cheese", "extravaganza", "tandoori"};
+    private static final OrderBook.Status[] STATUSES = OrderBook.Status.values();
+
+    @Param({"1000000"})
+    private int orders;
+
+    private OrderBook book;
+    private List<OrderBookFootprint.TrackedOrder> objects;
+
+    @Setup
+    public void setup() {
+        EventSinks.use(EventSink.NO_OP);
+        book = new OrderBook().intern(PunePizzaTypes.menu());
+        objects = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            String type = ORDERS[i % ORDERS.length];
+            OrderBook.Status status = STATUSES[(i * 7) % STATUSES.length];
+            book.update(book.add("pune", type, i), status, i);
+            objects.add(new OrderBookFootprint.TrackedOrder(PunePizzaTypes.create(type), type, "pune", status, i, i));
+        }
+    }
+
+    @Benchmark
+    public long[] columns() {
+        return book.countByTypeCode(OrderBook.Status.BAKE);
+    }
+
+    @Benchmark
+    public Map<String, Long> objects() {
+        Map<String, Long> counts = new HashMap<>();
+        for (OrderBookFootprint.TrackedOrder order : objects) {
+            if (order.status == OrderBook.Status.BAKE) {
+                counts.merge(order.type, 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+}
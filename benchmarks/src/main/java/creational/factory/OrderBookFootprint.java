@@ -0,0 +1,78 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap per million tracked orders, OrderBook columns vs one object per order holding its Pizza, the
+ * type String of the incoming order, store, status and two timestamps. Measured as used heap after
+ * full GCs, run with a fixed heap for stable numbers: java -Xms2g -Xmx2g -cp target/benchmarks.jar ...
+ *
+ * usage: java -cp target/benchmarks.jar creational.factory.OrderBookFootprint [orders]
+ */
+public class OrderBookFootprint {
+
+    private static final String[] ORDERS = {"cheese", "extravaganza", "tandoori"};
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        EventSinks.use(EventSink.NO_OP);
+
+        long before = usedHeap();
+        List<TrackedOrder> objects = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            String type = new String(ORDERS[i % ORDERS.length]); //as parsed from the incoming order
+            objects.add(new TrackedOrder(PunePizzaTypes.create(type), type, "pune", OrderBook.Status.BAKE, i, i));
+        }
+        long objectBytes = usedHeap() - before;
+        report("objects", objectBytes, orders, objects.size());
+        objects = null;
+
+        before = usedHeap();
+        OrderBook book = new OrderBook().intern(PunePizzaTypes.menu());
+        for (int i = 0; i < orders; i++) {
+            book.update(book.add("pune", ORDERS[i % ORDERS.length], i), OrderBook.Status.BAKE, i);
+        }
+        long bookBytes = usedHeap() - before;
+        report("order book", bookBytes, orders, book.size());
+        System.out.printf("order book columns: %d bytes/order, %.1fx smaller%n",
+                OrderBook.BYTES_PER_ORDER, (double) objectBytes / bookBytes);
+        System.out.println("in BAKE by type: " + book.countByType(OrderBook.Status.BAKE));
+    }
+
+    private static void report(String model, long bytes, int orders, int kept) {
+        System.out.printf("%-10s %8.1f MB per million orders, %6.1f bytes/order (%d orders)%n",
+                model, bytes * 1e6 / orders / (1 << 20), (double) bytes / orders, kept);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) { //a few rounds until the heap stops shrinking
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    static final class TrackedOrder {
+        final Pizza pizza;
+        final String type;
+        final String store;
+        OrderBook.Status status;
+        final long orderedAt;
+        long updatedAt;
+
+        TrackedOrder(Pizza pizza, String type, String store, OrderBook.Status status, long orderedAt, long updatedAt) {
+            this.pizza = pizza;
+            this.type = type;
+            this.store = store;
+            this.status = status;
+            this.orderedAt = orderedAt;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Order hand-off from one producer to store workers: OrderIntake ring with each wait strategy vs
+ * ArrayBlockingQueue and LinkedBlockingQueue with take() workers
+ * throughput: orders per microsecond for bursts of BATCH orders, the producer never waits on a result
+ * roundTrip: one order at a time, SampleTime gives the hand-off tail latency (p99, p99.9, p99.99)
+ * Needs at least consumers + 1 cores, otherwise the spinning variants fight the producer for the CPU
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(1) //single producer
+@State(Scope.Benchmark)
+public class OrderIntakeBenchmark {
+
+    private static final int BATCH = 16_384;
+    private static final int CAPACITY = 4_096;
+    private static final String[] ORDERS = {"cheese", "extravaganza", "tandoori"};
+
+    @Param({"ring-busy-spin", "ring-yield", "ring-park", "array-blocking", "linked-blocking"})
+    private String intake;
+
+    @Param({"1", "2"})
+    private int consumers;
+
+    private Intake target;
+    private long submitted;
+    private int next;
+
+    @Setup
+    public void setup() {
+        EventSinks.use(EventSink.NO_OP);
+        PunePizzaStore store = new PunePizzaStore();
+        target = switch (intake) {
+            case "ring-busy-spin" -> new RingIntake(store, consumers, OrderIntake.WaitStrategy.BUSY_SPIN);
+            case "ring-yield" -> new RingIntake(store, consumers, OrderIntake.WaitStrategy.YIELD);
+            case "ring-park" -> new RingIntake(store, consumers, OrderIntake.WaitStrategy.PARK);
+            case "array-blocking" -> new QueueIntake(store, consumers, new ArrayBlockingQueue<>(CAPACITY));
+            case "linked-blocking" -> new QueueIntake(store, consumers, new LinkedBlockingQueue<>(CAPACITY));
+            default -> throw new IllegalArgumentException("Unknown intake: " + intake);
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        target.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void throughput() throws InterruptedException {
+        for (int i = 0; i < BATCH; i++) {
+            target.submit(nextOrder());
+        }
+        submitted += BATCH;
+        awaitCooked();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void roundTrip() throws InterruptedException {
+        target.submit(nextOrder());
+        submitted++;
+        awaitCooked();
+    }
+
+    private void awaitCooked() {
+        while (target.cooked() < submitted) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private String nextOrder() {
+        int i = next;
+        next = i + 1 == ORDERS.length ? 0 : i + 1;
+        return ORDERS[i];
+    }
+
+    interface Intake {
+        void submit(String type) throws InterruptedException;
+
+        long cooked();
+
+        void close() throws InterruptedException;
+    }
+
+    static final class RingIntake implements Intake {
+        private final OrderIntake intake;
+
+        RingIntake(BasePizzaStore store, int consumers, OrderIntake.WaitStrategy waitStrategy) {
+            this.intake = new OrderIntake(store::orderPizza, store::deliver, CAPACITY, consumers, waitStrategy, 64);
+        }
+
+        @Override
+        public void submit(String type) {
+            intake.submit(type);
+        }
+
+        @Override
+        public long cooked() {
+            return intake.cooked();
+        }
+
+        @Override
+        public void close() {
+            intake.close();
+        }
+    }
+
+    static final class QueueIntake implements Intake {
+        private static final String STOP = new String("stop"); //compared by identity
+
+        private final BlockingQueue<String> queue;
+        private final Thread[] workers;
+        private final LongAdder cooked = new LongAdder();
+
+        QueueIntake(BasePizzaStore store, int consumers, BlockingQueue<String> queue) {
+            this.queue = queue;
+            this.workers = new Thread[consumers];
+            for (int i = 0; i < consumers; i++) {
+                workers[i] = new Thread(() -> {
+                    try {
+                        for (String type = queue.take(); type != STOP; type = queue.take()) {
+                            store.deliver(store.orderPizza(type));
+                            cooked.increment();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "queue-intake-" + i);
+                workers[i].setDaemon(true);
+                workers[i].start();
+            }
+        }
+
+        @Override
+        public void submit(String type) throws InterruptedException {
+            queue.put(type);
+        }
+
+        @Override
+        public long cooked() {
+            return cooked.sum();
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            for (Thread ignored : workers) {
+                queue.put(STOP);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * OrderJournal append and replay throughput, ops/us reads as millions of records per second
+ * A new journal per iteration keeps the files of one iteration at a few hundred MB.
+ * Run groupCommit with -t max: the more orders wait on a force, the more one force covers
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class OrderJournalBenchmark {
+
+    private static final String[] ORDERS = {"cheese", "extravaganza", "tandoori"};
+    private static final int REPLAYED = 1_000_000;
+
+    private Path dir;
+    private Path replayDir;
+    private OrderJournal async;
+    private OrderJournal groupCommit;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        String nextOrder() {
+            int i = next;
+            next = i + 1 == ORDERS.length ? 0 : i + 1;
+            return ORDERS[i];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        EventSinks.use(EventSink.NO_OP);
+        replayDir = Files.createTempDirectory("journal-replay");
+        try (OrderJournal journal = OrderJournal.open(replayDir, OrderJournal.Durability.ASYNC)) {
+            for (int i = 0; i < REPLAYED; i++) {
+                journal.append(ORDERS[i % ORDERS.length]);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() throws IOException {
+        dir = Files.createTempDirectory("journal");
+        async = OrderJournal.open(dir.resolve("async"), OrderJournal.Durability.ASYNC);
+        groupCommit = OrderJournal.open(dir.resolve("group-commit"), OrderJournal.Durability.GROUP_COMMIT);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() throws IOException {
+        async.close();
+        groupCommit.close();
+        delete(dir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        delete(replayDir);
+    }
+
+    @Benchmark
+    public long append(Cursor cursor) {
+        return async.append(cursor.nextOrder());
+    }
+
+    @Benchmark
+    public void groupCommit(Cursor cursor) {
+        groupCommit.record(cursor.nextOrder());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REPLAYED)
+    public long replay(Blackhole blackhole) throws IOException {
+        return OrderJournal.replay(replayDir, blackhole::consume);
+    }
+
+    /**
+     * Full speed re-drive of a store, every replayed order goes through orderPizza
+     */
+    @Benchmark
+    @OperationsPerInvocation(REPLAYED)
+    public long replayIntoStore(Blackhole blackhole) throws IOException {
+        PunePizzaStore store = new PunePizzaStore();
+        return OrderJournal.replay(replayDir, type -> blackhole.consume(store.orderPizza(type)));
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end orderPizza through each creational structure, the same pizza type everywhere:
+ * simple factory (PizzaStore + PizzaStoreFactory), factory method (PunePizzaStore, BengaluruPizzaStore)
+ * and abstract factory (MumbaiPizzaStore + its ingredient factory). Lifecycle events go to EventSink.NO_OP
+ *
+ * ns/op and bytes/op: java -jar target/benchmarks.jar OrderPathBenchmark -prof gc (gc.alloc.rate.norm)
+ * OrderPathRegressionCheck runs it against a recorded baseline and fails on a regression
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class OrderPathBenchmark {
+
+    private static final String TYPE = "cheese"; //the one type every store has
+
+    private PizzaStore simpleFactoryStore;
+    private BasePizzaStore puneStore;
+    private BasePizzaStore bengaluruStore;
+    private BasePizzaStore mumbaiStore;
+
+    @Setup
+    public void setup() {
+        EventSinks.use(EventSink.NO_OP);
+        simpleFactoryStore = new PizzaStore(new PizzaStoreFactory());
+        puneStore = new PunePizzaStore();
+        bengaluruStore = new BengaluruPizzaStore();
+        mumbaiStore = new MumbaiPizzaStore();
+    }
+
+    @Benchmark
+    public Pizza simpleFactory() {
+        return simpleFactoryStore.orderPizza(TYPE);
+    }
+
+    @Benchmark
+    public Pizza factoryMethodPune() {
+        return puneStore.orderPizza(TYPE);
+    }
+
+    @Benchmark
+    public Pizza factoryMethodBengaluru() {
+        return bengaluruStore.orderPizza(TYPE);
+    }
+
+    @Benchmark
+    public Pizza abstractFactory() {
+        return mumbaiStore.orderPizza(TYPE);
+    }
+}
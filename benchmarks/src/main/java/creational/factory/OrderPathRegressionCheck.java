@@ -0,0 +1,170 @@
+package creational.factory;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Runs OrderPathBenchmark with the gc profiler and compares ns/op and bytes/op of every order path
+ * with the baseline in results/order-path-baseline.properties. Exits with status 1 when a path got
+ * slower or allocates more than the thresholds allow, so a CI step fails on it
+ *
+ * A run with --update-baseline records the baseline instead, without a baseline the check fails so a
+ * CI step never passes by recording one. Times only compare on the same machine, see
+ * results/README.md; bytes/op compares anywhere on the same JVM version. A path without bytes/op,
+ * e.g. the gc profiler did not report, fails too
+ *
+ * usage: java -cp target/benchmarks.jar creational.factory.OrderPathRegressionCheck [--update-baseline]
+ * thresholds: -Dmax.slowdown=0.15 (15% more ns/op) -Dmax.alloc.increase=0.05 (5% more bytes/op, plus 8 bytes)
+ */
+public class OrderPathRegressionCheck {
+
+    private static final String ALLOC = "gc.alloc.rate.norm";
+    private static final double ALLOC_SLACK_BYTES = 8; //one object header more is noise, not a regression
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        boolean update = args.length == 1 && args[0].equals("--update-baseline");
+        if (args.length > 0 && !update) {
+            System.err.println("usage: OrderPathRegressionCheck [--update-baseline]");
+            System.exit(2);
+        }
+        double maxSlowdown = Double.parseDouble(System.getProperty("max.slowdown", "0.15"));
+        double maxAllocIncrease = Double.parseDouble(System.getProperty("max.alloc.increase", "0.05"));
+        Path resultDir = Paths.get(System.getProperty("results.dir", "results"));
+        Path baselineFile = resultDir.resolve("order-path-baseline.properties");
+        if (!update && !Files.exists(baselineFile)) {
+            System.err.println("no baseline in " + baselineFile + ", record one with --update-baseline");
+            System.exit(1);
+        }
+
+        Options options = new OptionsBuilder()
+                .include(OrderPathBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        Map<String, double[]> measured = measure(new Runner(options).run());
+
+        if (update) {
+            List<String> unmeasured = unmeasured(measured);
+            if (!unmeasured.isEmpty()) {
+                unmeasured.forEach(System.err::println);
+                System.exit(1); //a NaN baseline would never compare
+            }
+            Files.createDirectories(resultDir);
+            writeBaseline(baselineFile, measured);
+            System.out.println("baseline recorded in " + baselineFile);
+            return;
+        }
+        List<String> regressions = compare(readBaseline(baselineFile), measured, maxSlowdown, maxAllocIncrease);
+        if (!regressions.isEmpty()) {
+            regressions.forEach(System.err::println);
+            System.exit(1);
+        }
+        System.out.println("no regression against " + baselineFile);
+    }
+
+    /**
+     * @return ns/op and bytes/op per benchmark method
+     */
+    private static Map<String, double[]> measure(Collection<RunResult> results) {
+        Map<String, double[]> measured = new TreeMap<>();
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            String path = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+            double nanos = result.getPrimaryResult().getScore();
+            double bytes = Double.NaN;
+            Map<String, ?> secondaries = result.getSecondaryResults(); //JMH declares the values raw
+            for (String label : secondaries.keySet()) {
+                if (label.endsWith(ALLOC)) { //older JMH versions prefix the label with a dot
+                    Result<?> alloc = (Result<?>) secondaries.get(label);
+                    bytes = alloc.getScore();
+                }
+            }
+            measured.put(path, new double[]{nanos, bytes});
+            System.out.printf("%-24s %10.1f ns/op %10.1f B/op%n", path, nanos, bytes);
+        }
+        return measured;
+    }
+
+    /**
+     * @return one line per path missing ns/op or bytes/op, NaN fails every comparison silently
+     */
+    static List<String> unmeasured(Map<String, double[]> measured) {
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<String, double[]> path : measured.entrySet()) {
+            if (Double.isNaN(path.getValue()[0]) || Double.isNaN(path.getValue()[1])) {
+                missing.add(path.getKey() + ": no ns/op or bytes/op measured, is the gc profiler supported here?");
+            }
+        }
+        return missing;
+    }
+
+    static List<String> compare(Map<String, double[]> baseline, Map<String, double[]> measured,
+                                double maxSlowdown, double maxAllocIncrease) {
+        List<String> regressions = new ArrayList<>(unmeasured(measured));
+        for (Map.Entry<String, double[]> path : measured.entrySet()) {
+            double[] before = baseline.get(path.getKey());
+            if (before == null) {
+                continue; //new path, recorded with the next --update-baseline
+            }
+            if (Double.isNaN(before[0]) || Double.isNaN(before[1])) {
+                regressions.add(path.getKey() + ": baseline has no ns/op or bytes/op, record it again with --update-baseline");
+                continue;
+            }
+            double[] now = path.getValue();
+            if (now[0] > before[0] * (1 + maxSlowdown)) {
+                regressions.add(String.format("%s: %.1f ns/op, baseline %.1f ns/op (+%.0f%%, allowed +%.0f%%)",
+                        path.getKey(), now[0], before[0], (now[0] / before[0] - 1) * 100, maxSlowdown * 100));
+            }
+            if (now[1] > before[1] * (1 + maxAllocIncrease) + ALLOC_SLACK_BYTES) {
+                regressions.add(String.format("%s: %.1f B/op, baseline %.1f B/op (allowed +%.0f%% + %.0f bytes)",
+                        path.getKey(), now[1], before[1], maxAllocIncrease * 100, ALLOC_SLACK_BYTES));
+            }
+        }
+        return regressions;
+    }
+
+    private static Map<String, double[]> readBaseline(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file)) {
+            properties.load(in);
+        }
+        Map<String, double[]> baseline = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.endsWith(".ns")) {
+                String path = key.substring(0, key.length() - ".ns".length());
+                baseline.put(path, new double[]{Double.parseDouble(properties.getProperty(key)),
+                        Double.parseDouble(properties.getProperty(path + ".bytes", "NaN"))});
+            }
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(Path file, Map<String, double[]> measured) throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, double[]> path : measured.entrySet()) {
+            properties.setProperty(path.getKey() + ".ns", Double.toString(path.getValue()[0]));
+            properties.setProperty(path.getKey() + ".bytes", Double.toString(path.getValue()[1]));
+        }
+        try (Writer out = Files.newBufferedWriter(file)) {
+            properties.store(out, "OrderPathBenchmark baseline, " + System.getProperty("java.vm.name") + " "
+                    + System.getProperty("java.version") + ", " + Runtime.getRuntime().availableProcessors() + " cpus");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Open-loop load from capacity up to 5 times capacity, without admission control, with an in-flight
+ * limit of two orders per cook and with the adaptive limit. Without admission latency grows with the
+ * backlog, with it the admitted orders keep about the same p99 and the excess is rejected
+ *
+ * usage: java -cp target/benchmarks.jar creational.factory.OverloadLoadTest [cooks] [bake-micros] [step-seconds]
+ */
+public class OverloadLoadTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        int cooks = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        long bakeMicros = args.length > 1 ? Long.parseLong(args[1]) : 200;
+        long stepSeconds = args.length > 2 ? Long.parseLong(args[2]) : 3;
+
+        EventSinks.use(EventSink.NO_OP); //lifecycle output is not under test
+        BasePizzaStore store = new OpenLoopLoadTest.BusyOvenStore(bakeMicros);
+        double capacity = cooks * 1e6 / bakeMicros;
+        double[] rates = {capacity, capacity * 2, capacity * 3, capacity * 5};
+        Duration target = Duration.ofNanos(bakeMicros * 1_000 * 4);
+
+        System.out.printf("cooks: %d, bake: %d us, capacity: ~%.0f orders/s%n", cooks, bakeMicros, capacity);
+        curve("no admission control", () -> null, store, cooks, rates, stepSeconds);
+        curve("max in flight " + 2 * cooks, () -> new AdmissionControl().maxInFlight(2 * cooks),
+                store, cooks, rates, stepSeconds);
+        curve("adaptive limit, target " + target.toNanos() / 1_000 + " us",
+                () -> new AdmissionControl().adaptiveLimit(2 * cooks, cooks, 64 * cooks, target),
+                store, cooks, rates, stepSeconds);
+    }
+
+    private static void curve(String name, Supplier<AdmissionControl> admission, BasePizzaStore store, int cooks,
+                              double[] rates, long stepSeconds) throws InterruptedException {
+        System.out.println();
+        System.out.println(name);
+        System.out.println(LoadReport.header());
+        for (double rate : rates) {
+            LoadGenerator generator = new LoadGenerator(store::orderPizza)
+                    .mix("cheese", 6)
+                    .mix("tandoori", 3)
+                    .mix("extravaganza", 1)
+                    .cooks(cooks);
+            AdmissionControl control = admission.get(); //fresh per step, no limit learnt at a lower rate
+            if (control != null) {
+                generator.admission(control);
+            }
+            System.out.println(generator.run(rate, Duration.ofSeconds(stepSeconds)));
+        }
+    }
+}
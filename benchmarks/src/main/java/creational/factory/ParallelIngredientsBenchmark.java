@@ -0,0 +1,106 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MumbaiCheesePizza.prepare() against a slow ingredient supplier (dough, cheese and sauce each take
+ * the given milliseconds), sourcing one after the other vs ParallelIngredientFactory
+ * Sequential takes about the sum, parallel about the slowest ingredient plus forking three virtual
+ * threads; fast is the cached region factory in parallel, i.e. the overhead when nothing is slow
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ParallelIngredientsBenchmark {
+
+    @Param({"2,3,1"})
+    private String delaysMillis;
+
+    private Pizza sequential;
+    private Pizza parallel;
+    private Pizza fastSequential;
+    private Pizza fastParallel;
+
+    @Setup
+    public void setup() {
+        EventSinks.use(EventSink.NO_OP);
+        String[] delays = delaysMillis.split(",");
+        PizzaIngredientFactory slow = new SlowIngredientFactory(Long.parseLong(delays[0]),
+                Long.parseLong(delays[1]), Long.parseLong(delays[2]));
+        PizzaIngredientFactory fast = PizzaIngredientFactories.shared().forRegion("mumbai");
+        sequential = new MumbaiCheesePizza(slow);
+        parallel = new MumbaiCheesePizza(new ParallelIngredientFactory(slow, Duration.ofSeconds(1)));
+        fastSequential = new MumbaiCheesePizza(fast);
+        fastParallel = new MumbaiCheesePizza(new ParallelIngredientFactory(fast, Duration.ofSeconds(1)));
+    }
+
+    @Benchmark
+    public void sequential() {
+        sequential.prepare();
+    }
+
+    @Benchmark
+    public void parallel() {
+        parallel.prepare();
+    }
+
+    @Benchmark
+    public void fastSequential() {
+        fastSequential.prepare();
+    }
+
+    @Benchmark
+    public void fastParallel() {
+        fastParallel.prepare();
+    }
+
+    /**
+     * Ingredients from a remote supplier, e.g. a warehouse service
+     */
+    static final class SlowIngredientFactory extends MumbaiPizzaIngredientFactory {
+        private final long doughMillis;
+        private final long cheeseMillis;
+        private final long sauceMillis;
+
+        SlowIngredientFactory(long doughMillis, long cheeseMillis, long sauceMillis) {
+            this.doughMillis = doughMillis;
+            this.cheeseMillis = cheeseMillis;
+            this.sauceMillis = sauceMillis;
+        }
+
+        @Override
+        public Dough createDough() {
+            fetch(doughMillis);
+            return super.createDough();
+        }
+
+        @Override
+        public Cheese createCheese() {
+            fetch(cheeseMillis);
+            return super.createCheese();
+        }
+
+        @Override
+        public Sauce createSauce() {
+            fetch(sauceMillis);
+            return super.createSauce();
+        }
+
+        private static void fetch(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("fetch cancelled", e);
+            }
+        }
+    }
+}
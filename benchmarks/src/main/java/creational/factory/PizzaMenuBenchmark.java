@@ -0,0 +1,68 @@
+package creational.factory;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cost of resolving a pizza type to its constructor as the menu grows
+ * PizzaMenu hash lookup vs the linear type.equals(...) chain it replaced
+ * Only dispatch is measured, the pizza itself is not created
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PizzaMenuBenchmark {
+
+    @Param({"3", "50", "500"})
+    private int menuSize;
+
+    private String[] menuTypes;
+    private Supplier<? extends Pizza>[] menuConstructors;
+    private PizzaMenu menu;
+    private String[] orders; //equal to, but not the same instances as the registered types
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        PizzaMenu.Builder builder = PizzaMenu.builder();
+        menuTypes = new String[menuSize];
+        menuConstructors = (Supplier<? extends Pizza>[]) new Supplier<?>[menuSize];
+        orders = new String[menuSize];
+        for (int i = 0; i < menuSize; i++) {
+            menuTypes[i] = "pizza-" + i;
+            menuConstructors[i] = CheezePizza::new;
+            builder.add(menuTypes[i], menuConstructors[i]);
+            orders[i] = new String(menuTypes[i]);
+            orders[i].hashCode(); //a real order type is hashed once as well
+        }
+        menu = builder.build();
+    }
+
+    private String nextOrder() {
+        int i = next;
+        next = i + 1 == orders.length ? 0 : i + 1;
+        return orders[i];
+    }
+
+    @Benchmark
+    public Supplier<? extends Pizza> menu() {
+        return menu.constructorOf(nextOrder());
+    }
+
+    @Benchmark
+    public Supplier<? extends Pizza> equalsChain() {
+        String type = nextOrder();
+        for (int i = 0; i < menuTypes.length; i++) { //what the if/else chains did
+            if (type.equals(menuTypes[i])) {
+                return menuConstructors[i];
+            }
+        }
+        return null;
+    }
+}
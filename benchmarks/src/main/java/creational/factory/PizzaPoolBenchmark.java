@@ -0,0 +1,72 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order path with and without pooling, run with the gc profiler to see the allocation rate:
+ * java -jar target/benchmarks.jar PizzaPoolBenchmark -prof gc   (look at gc.alloc.rate.norm, bytes/op)
+ * Lifecycle events go to EventSink.NO_OP so they do not dominate the numbers
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PizzaPoolBenchmark {
+
+    private static final String[] ORDERS = {"cheese", "extravaganza", "tandoori"};
+
+    private BasePizzaStore store;
+    private BasePizzaStore pooledStore;
+    private PizzaStore simpleStore;
+    private PizzaStore pooledSimpleStore;
+    private int next;
+
+    @Setup
+    public void setup() {
+        EventSinks.use(EventSink.NO_OP);
+        store = new PunePizzaStore();
+        pooledStore = new PunePizzaStore().enablePooling(16);
+        simpleStore = new PizzaStore(new PizzaStoreFactory());
+        pooledSimpleStore = new PizzaStore(new PizzaStoreFactory()).enablePooling(16);
+    }
+
+    private String nextOrder() {
+        int i = next;
+        next = i + 1 == ORDERS.length ? 0 : i + 1;
+        return ORDERS[i];
+    }
+
+    @Benchmark
+    public Pizza factoryMethod() {
+        Pizza pizza = store.orderPizza(nextOrder());
+        store.deliver(pizza);
+        return pizza;
+    }
+
+    @Benchmark
+    public Pizza factoryMethodPooled() {
+        Pizza pizza = pooledStore.orderPizza(nextOrder());
+        pooledStore.deliver(pizza);
+        return pizza;
+    }
+
+    @Benchmark
+    public Pizza simpleFactory() {
+        Pizza pizza = simpleStore.orderPizza(nextOrder());
+        simpleStore.deliver(pizza);
+        return pizza;
+    }
+
+    @Benchmark
+    public Pizza simpleFactoryPooled() {
+        Pizza pizza = pooledSimpleStore.orderPizza(nextOrder());
+        pooledSimpleStore.deliver(pizza);
+        return pizza;
+    }
+}
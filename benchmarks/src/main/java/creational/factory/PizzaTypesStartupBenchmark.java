@@ -0,0 +1,45 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to the first pizza in a fresh JVM: the generated PunePizzaTypes switch vs a registry
+ * resolving the same types by class name through reflection, as a scanning based registry would
+ * Each fork makes exactly one call, so class loading and linking are part of the measurement
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1, batchSize = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class PizzaTypesStartupBenchmark {
+
+    private static final Map<String, String> REFLECTIVE_REGISTRY = Map.of(
+            "cheese", "creational.factory.PuneCheesePizza",
+            "extravaganza", "creational.factory.PuneExtravaganzaPizza",
+            "tandoori", "creational.factory.PuneTandooriPizza");
+
+    @Setup
+    public void setup() {
+        EventSinks.use(EventSink.NO_OP);
+    }
+
+    @Benchmark
+    public Pizza generated() {
+        return PunePizzaTypes.create("tandoori");
+    }
+
+    @Benchmark
+    public Pizza reflective() throws ReflectiveOperationException {
+        for (Map.Entry<String, String> type : REFLECTIVE_REGISTRY.entrySet()) { //registry loads every type upfront
+            Class.forName(type.getValue());
+        }
+        return (Pizza) Class.forName(REFLECTIVE_REGISTRY.get("tandoori")).getDeclaredConstructor().newInstance();
+    }
+}
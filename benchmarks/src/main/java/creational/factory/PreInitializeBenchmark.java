@@ -0,0 +1,40 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boot time cost of the opt-in preInitialize() of each store in a fresh JVM,
+ * to weigh against what it saves on the first order (FirstOrderBenchmark)
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1, batchSize = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class PreInitializeBenchmark {
+
+    @Setup
+    public void setup() {
+        EventSinks.use(EventSink.NO_OP);
+    }
+
+    @Benchmark
+    public PizzaStore simpleFactory() {
+        return new PizzaStore(new PizzaStoreFactory()).preInitialize();
+    }
+
+    @Benchmark
+    public BasePizzaStore factoryMethod() {
+        return new PunePizzaStore().preInitialize();
+    }
+
+    @Benchmark
+    public BasePizzaStore abstractFactory() {
+        return new MumbaiPizzaStore().preInitialize();
+    }
+}
@@ -0,0 +1,77 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of StoreRouter from 1 shard to all cores, orders per microsecond of a batch that mixes
+ * cheap orders with bursts of slow tandoori orders (a cook is busy 1 us vs 20 us)
+ * Cover every core count with: java -jar target/benchmarks.jar StoreRouterBenchmark -p shards=1,2,4,...,N
+ * stealing=false shows what a hash-routed burst does to the shard it lands on
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class StoreRouterBenchmark {
+
+    private static final int BATCH = 4096;
+    private static final int BURST = 64; //slow orders come in bursts of this many
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int shards;
+
+    @Param({"hashByType", "leastLoaded"})
+    private String routing;
+
+    @Param({"true", "false"})
+    private boolean stealing;
+
+    private StoreRouter router;
+    private final String[] orders = new String[BATCH];
+    private final CompletableFuture<?>[] pizzas = new CompletableFuture<?>[BATCH];
+
+    @Setup
+    public void setup() {
+        EventSinks.use(EventSink.NO_OP);
+        String[] fast = {"cheese", "extravaganza"};
+        for (int i = 0; i < BATCH; i++) {
+            orders[i] = (i / BURST) % 4 == 0 ? "tandoori" : fast[i % fast.length]; //a quarter slow, in bursts
+        }
+        StoreRouter.Routing policy = routing.equals("hashByType") ? StoreRouter.Routing.hashByType() : StoreRouter.Routing.leastLoaded();
+        router = new StoreRouter(shards, () -> new BusyStore()::orderPizza, policy, stealing);
+    }
+
+    @TearDown
+    public void tearDown() {
+        router.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void batch() {
+        for (int i = 0; i < BATCH; i++) {
+            pizzas[i] = router.order(orders[i]);
+        }
+        CompletableFuture.allOf(pizzas).join();
+    }
+
+    static final class BusyStore extends PunePizzaStore {
+
+        @Override
+        public Pizza orderPizza(String type) {
+            Pizza pizza = super.orderPizza(type);
+            long until = System.nanoTime() + (type.equals("tandoori") ? 20_000 : 1_000);
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait(); //the cook is busy with this order
+            }
+            return pizza;
+        }
+    }
+}
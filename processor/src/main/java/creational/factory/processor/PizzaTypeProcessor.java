@@ -0,0 +1,219 @@
+package creational.factory.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Generates one &lt;Store&gt;PizzaTypes class per store named in @PizzaType, with
+ * create(type): a string switch of direct new calls, and menu(): the same types as a PizzaMenu
+ * Fails the build for classes which cannot be created that way instead of failing at runtime
+ */
+@SupportedAnnotationTypes(PizzaTypeProcessor.PIZZA_TYPE)
+public class PizzaTypeProcessor extends AbstractProcessor {
+
+    static final String PIZZA_TYPE = "creational.factory.PizzaType";
+    private static final String PIZZA = "creational.factory.Pizza";
+    private static final String PIZZA_MENU = "creational.factory.PizzaMenu";
+
+    private final Set<String> generatedStores = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement pizzaType = processingEnv.getElementUtils().getTypeElement(PIZZA_TYPE);
+        if (pizzaType == null || annotations.isEmpty()) {
+            return false;
+        }
+        Map<String, Store> stores = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(pizzaType)) {
+            AnnotationMirror annotation = annotationOf(element, pizzaType);
+            String store = value(annotation, "store");
+            String name = value(annotation, "name");
+            if (className(store) == null) {
+                error(element, annotation, "store name '%s' does not give a valid class name", store);
+            } else if (name.isEmpty()) {
+                error(element, annotation, "pizza type name must not be empty");
+            } else if (isValid(element, annotation)) {
+                TypeElement type = (TypeElement) element;
+                String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+                Store menu = stores.computeIfAbsent(store, s -> new Store(pkg));
+                if (!menu.pkg.equals(pkg)) {
+                    error(element, annotation, "pizza types of store '%s' must be in one package, found %s and %s",
+                            store, menu.pkg, pkg);
+                } else if (menu.types.putIfAbsent(name, type.getQualifiedName().toString()) != null) {
+                    error(element, annotation, "duplicate pizza type '%s' in store '%s'", name, store);
+                }
+            }
+        }
+        for (Map.Entry<String, Store> store : stores.entrySet()) {
+            if (!generatedStores.add(store.getKey())) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "pizza types of store '" + store.getKey() + "' are spread over several processing rounds");
+                continue;
+            }
+            generate(store.getKey(), store.getValue());
+        }
+        return true;
+    }
+
+    private boolean isValid(Element element, AnnotationMirror annotation) {
+        if (element.getKind() != ElementKind.CLASS) {
+            error(element, annotation, "@PizzaType is only allowed on classes");
+            return false;
+        }
+        TypeElement type = (TypeElement) element;
+        TypeMirror pizza = processingEnv.getElementUtils().getTypeElement(PIZZA).asType();
+        if (!processingEnv.getTypeUtils().isSubtype(type.asType(), pizza)) {
+            error(element, annotation, "%s must extend %s", type.getSimpleName(), PIZZA);
+            return false;
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT) || type.getModifiers().contains(Modifier.PRIVATE)) {
+            error(element, annotation, "%s must be a concrete, non-private class", type.getSimpleName());
+            return false;
+        }
+        if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+            error(element, annotation, "%s must be a top level or static nested class", type.getSimpleName());
+            return false;
+        }
+        boolean noArgConstructor = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                noArgConstructor = true;
+            }
+        }
+        if (!noArgConstructor) {
+            error(element, annotation, "%s needs a non-private no-arg constructor", type.getSimpleName());
+        }
+        return noArgConstructor;
+    }
+
+    /**
+     * @return name of the class generated for the store, null if the store name does not give one
+     */
+    static String className(String store) {
+        if (store.isEmpty()) {
+            return null;
+        }
+        String className = Character.toUpperCase(store.charAt(0)) + store.substring(1) + "PizzaTypes";
+        return SourceVersion.isIdentifier(className) ? className : null;
+    }
+
+    private void generate(String store, Store menu) {
+        String className = className(store);
+        String qualifiedName = menu.pkg.isEmpty() ? className : menu.pkg + "." + className;
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName).openWriter())) {
+            if (!menu.pkg.isEmpty()) {
+                out.println("package " + menu.pkg + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Pizza types of the " + store + " store, generated from @PizzaType by "
+                    + getClass().getSimpleName() + ", do not edit");
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("final class " + className + " {");
+            out.println();
+            out.println("    private " + className + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * @throws IllegalArgumentException if the type is not on the menu");
+            out.println("     */");
+            out.println("    static " + PIZZA + " create(String type) {");
+            out.println("        switch (type) {");
+            for (Map.Entry<String, String> type : menu.types.entrySet()) {
+                out.println("            case " + literal(type.getKey()) + ":");
+                out.println("                return new " + type.getValue() + "();");
+            }
+            out.println("            default:");
+            out.println("                throw new IllegalArgumentException(\"Unknown pizza type: \" + type);");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    static " + PIZZA_MENU + " menu() {");
+            out.println("        return MenuHolder.MENU;");
+            out.println("    }");
+            out.println();
+            out.println("    private static final class MenuHolder { //only built when the menu is asked for");
+            out.println("        private static final " + PIZZA_MENU + " MENU = " + PIZZA_MENU + ".builder()");
+            for (Map.Entry<String, String> type : menu.types.entrySet()) {
+                out.println("                .add(" + literal(type.getKey()) + ", " + type.getValue() + "::new)");
+            }
+            out.println("                .build();");
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static AnnotationMirror annotationOf(Element element, TypeElement annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (mirror.getAnnotationType().asElement().equals(annotationType)) {
+                return mirror;
+            }
+        }
+        throw new IllegalStateException("no @PizzaType on " + element);
+    }
+
+    private static String value(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value
+                : annotation.getElementValues().entrySet()) {
+            if (value.getKey().getSimpleName().contentEquals(name)) {
+                return (String) value.getValue().getValue();
+            }
+        }
+        throw new IllegalStateException("@PizzaType without " + name);
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void error(Element element, AnnotationMirror annotation, String format, Object... args) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format(format, args), element, annotation);
+    }
+
+    private static final class Store {
+        private final String pkg;
+        private final Map<String, String> types = new TreeMap<>(); //sorted, generated code is stable
+
+        private Store(String pkg) {
+            this.pkg = pkg;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package creational.factory.processor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PizzaTypeProcessorTest {
+
+    //what the processor needs from creational.factory, the real classes live in the main tree
+    private static final String PIZZA_TYPE = "package creational.factory;\n"
+            + "@interface PizzaType { String store(); String name(); }\n";
+    private static final String PIZZA = "package creational.factory;\n"
+            + "public abstract class Pizza { }\n";
+    private static final String PIZZA_MENU = "package creational.factory;\n"
+            + "public final class PizzaMenu {\n"
+            + "    public static Builder builder() { return new Builder(); }\n"
+            + "    public static final class Builder {\n"
+            + "        public Builder add(String type, java.util.function.Supplier<? extends Pizza> creator) { return this; }\n"
+            + "        public PizzaMenu build() { return new PizzaMenu(); }\n"
+            + "    }\n"
+            + "}\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("should generate a switch and a menu per store")
+    void testGenerate() throws IOException {
+        Result result = compile(pizza("CheesePizza", "pune", "cheese"), pizza("TandooriPizza", "pune", "tandoori"));
+
+        assertTrue(result.errors.isEmpty(), result.errors::toString);
+        String generated = Files.readString(dir.resolve("creational/factory/PunePizzaTypes.java"));
+        assertTrue(generated.contains("case \"cheese\":"));
+        assertTrue(generated.contains("return new creational.factory.TandooriPizza();"));
+        assertTrue(generated.contains(".add(\"tandoori\", creational.factory.TandooriPizza::new)"));
+    }
+
+    @Test
+    @DisplayName("should report an empty or unusable store name on the annotated class")
+    void testInvalidStore() throws IOException {
+        Result empty = compile(pizza("CheesePizza", "", "cheese"));
+        Result dashed = compile(pizza("CheesePizza", "new-delhi", "cheese"));
+
+        assertEquals(List.of("store name '' does not give a valid class name"), empty.errors);
+        assertEquals("CheesePizza.java", empty.sources.get(0));
+        assertEquals(List.of("store name 'new-delhi' does not give a valid class name"), dashed.errors);
+    }
+
+    @Test
+    @DisplayName("should report classes which cannot be created by the generated switch")
+    void testInvalidClasses() throws IOException {
+        Result result = compile(
+                source("NoPizza", "@PizzaType(store = \"pune\", name = \"cheese\") class NoPizza { }"),
+                source("PrivatePizza", "@PizzaType(store = \"pune\", name = \"veg\") class PrivatePizza extends Pizza {"
+                        + " private PrivatePizza() { } }"),
+                pizza("CheesePizza", "pune", "tandoori"),
+                pizza("TandooriPizza", "pune", "tandoori"),
+                pizza("EmptyPizza", "pune", ""));
+
+        assertEquals(List.of(
+                "NoPizza must extend creational.factory.Pizza",
+                "PrivatePizza needs a non-private no-arg constructor",
+                "duplicate pizza type 'tandoori' in store 'pune'",
+                "pizza type name must not be empty"), result.errors);
+    }
+
+    private static JavaFileObject pizza(String className, String store, String name) {
+        return source(className, "@PizzaType(store = \"" + store + "\", name = \"" + name + "\")"
+                + " class " + className + " extends Pizza { }");
+    }
+
+    private static JavaFileObject source(String className, String code) {
+        return file(className, "package creational.factory;\n" + code + "\n");
+    }
+
+    private static JavaFileObject file(String className, String code) {
+        return new SimpleJavaFileObject(URI.create("string:///creational/factory/" + className + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    private Result compile(JavaFileObject... pizzas) throws IOException {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<JavaFileObject> sources = new ArrayList<>(List.of(pizzas));
+        sources.add(file("PizzaType", PIZZA_TYPE));
+        sources.add(file("Pizza", PIZZA));
+        sources.add(file("PizzaMenu", PIZZA_MENU));
+        try (StandardJavaFileManager files = javac.getStandardFileManager(diagnostics, null, null)) {
+            JavaCompiler.CompilationTask task = javac.getTask(null, files, diagnostics,
+                    List.of("-proc:only", "-s", dir.toString()), null, sources);
+            task.setProcessors(List.of(new PizzaTypeProcessor()));
+            task.call();
+        }
+        Result result = new Result();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                result.errors.add(diagnostic.getMessage(null));
+                JavaFileObject source = diagnostic.getSource(); //null for errors not on an element
+                result.sources.add(source == null ? null : Path.of(source.toUri().getPath()).getFileName().toString());
+            }
+        }
+        return result;
+    }
+
+    private static final class Result {
+        private final List<String> errors = new ArrayList<>();
+        private final List<String> sources = new ArrayList<>(); //file each error points at
+    }
+}
@@ -0,0 +1,23 @@
+package creational;
+
+/** Receives the progress messages of the examples (pizza lifecycle, singleton creation...)
+ * instead of them calling System.out.println directly, which serializes every caller on the PrintStream lock
+ *
+ * @see creational.EventSinks for the sink in use
+ * @author mohit
+ */
+@FunctionalInterface
+public interface EventSink {
+
+    EventSink NO_OP = event -> {
+    }; //for benchmarks
+
+    void emit(String event);
+
+    /**
+     * @return sink printing every event synchronously, the behaviour before sinks existed
+     */
+    static EventSink console() {
+        return event -> System.out.println(event);
+    }
+}
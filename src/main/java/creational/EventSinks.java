@@ -0,0 +1,34 @@
+package creational;
+
+import java.util.Objects;
+
+/** Global point of access to the EventSink in use
+ * Default is a RingBufferEventSink writing to System.out, started on first use and drained at JVM exit
+ *
+ * @author mohit
+ */
+public final class EventSinks {
+
+    private static final Lazy<RingBufferEventSink> DEFAULT = Lazy.of(() -> {
+        RingBufferEventSink sink = new RingBufferEventSink(System.out, 8192);
+        Runtime.getRuntime().addShutdownHook(new Thread(sink::close, "event-sink-shutdown"));
+        return sink;
+    });
+
+    private static volatile EventSink current; //null until replaced, then DEFAULT is never started
+
+    private EventSinks() {
+    }
+
+    public static EventSink current() {
+        EventSink sink = current;
+        return sink != null ? sink : DEFAULT.get();
+    }
+
+    /**
+     * @param sink used from now on by every example, e.g. EventSink.NO_OP or EventSink.console()
+     */
+    public static void use(EventSink sink) {
+        current = Objects.requireNonNull(sink, "sink");
+    }
+}
@@ -0,0 +1,110 @@
+package creational;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/** Reusable lazy holder, the runtime parameterized version of Singleton.BillPughSingleton
+ * Value is created on first get() and then published once, it never changes afterwards
+ * so a caller can safely copy it into a final field or local and stop calling get()
+ *
+ * get() is an acquire load and a null check on every call. On x86 that is the same plain load as the
+ * volatile read of Singleton.DoubleCheckLockSingleton and costs about as much, clearly more than
+ * EagerSingleton or BillPughSingleton, whose static final the JIT folds into a constant. Where that
+ * matters, copy the value into a static final once (see SingletonBenchmark.lazyCopied)
+ *
+ * @author mohit
+ */
+public final class Lazy<T> implements Supplier<T> {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Lazy.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final boolean once;
+    private Supplier<? extends T> supplier; //dropped after publication so captured state can be collected
+    @SuppressWarnings("unused") //accessed via VALUE
+    private Object value; //null until published
+
+    private Lazy(Supplier<? extends T> supplier, boolean once) {
+        this.supplier = Objects.requireNonNull(supplier, "supplier");
+        this.once = once;
+    }
+
+    /**
+     * Supplier is called at most once, threads racing on the very first get() wait for the winner
+     *
+     * @param supplier creates the value, must not return null
+     */
+    public static <T> Lazy<T> of(Supplier<? extends T> supplier) {
+        return new Lazy<>(supplier, true);
+    }
+
+    /**
+     * Lock free, threads racing on the very first get() may all call supplier but only one value
+     * is published via CAS and every caller gets that value. Use for cheap or idempotent creation
+     *
+     * @param supplier creates the value, must not return null
+     */
+    public static <T> Lazy<T> racy(Supplier<? extends T> supplier) {
+        return new Lazy<>(supplier, false);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get() {
+        Object v = VALUE.getAcquire(this);
+        return v != null ? (T) v : initialize(); //fast path is a single load
+    }
+
+    public boolean isInitialized() {
+        return VALUE.getAcquire(this) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T initialize() {
+        if (once) {
+            synchronized (this) { //only reached until the value is published
+                Object v = VALUE.getAcquire(this);
+                if (v == null) {
+                    v = create();
+                    VALUE.setRelease(this, v);
+                    supplier = null;
+                }
+                return (T) v;
+            }
+        }
+        Supplier<? extends T> s = supplier;
+        if (s == null) { //supplier is dropped only after publication, the value is about to become visible
+            Object v;
+            while ((v = VALUE.getAcquire(this)) == null) {
+                Thread.onSpinWait();
+            }
+            return (T) v;
+        }
+        Object created = Objects.requireNonNull(s.get(), "Lazy supplier returned null");
+        Object witness = VALUE.compareAndExchange(this, null, created);
+        if (witness != null) {
+            return (T) witness; //lost the race, discard our value
+        }
+        supplier = null;
+        return (T) created;
+    }
+
+    private Object create() {
+        return Objects.requireNonNull(supplier.get(), "Lazy supplier returned null");
+    }
+
+    @Override
+    public String toString() {
+        Object v = VALUE.getAcquire(this);
+        return v != null ? "Lazy[" + v + "]" : "Lazy[not initialized]";
+    }
+}
@@ -0,0 +1,151 @@
+package creational;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/** Multiton => one instance per key (region, tenant...), and a global point of access to each of them
+ * It is the keyed version of Singleton, e.g. one PizzaIngredientFactory per city
+ *
+ * Every key gets its own creational.Lazy, so a slow creation for one key only blocks callers
+ * of that same key, lookups of other keys go straight through. Lookup of an existing key does not allocate
+ *
+ * Optionally bounded: once more than maxSize keys are present the least recently inserted key
+ * which was not used since the last sweep is evicted (second chance / clock order)
+ *
+ * @author mohit
+ */
+public final class Multiton<K, V> {
+
+    private final Function<? super K, ? extends V> factory;
+    private final ConcurrentHashMap<K, Entry<V>> instances = new ConcurrentHashMap<>();
+
+    //only used in bounded mode
+    private final int maxSize;
+    private final Queue<K> insertionOrder;
+    private final AtomicInteger size;
+    private final Consumer<? super V> onEvict;
+
+    private Multiton(Function<? super K, ? extends V> factory, int maxSize, Consumer<? super V> onEvict) {
+        this.factory = Objects.requireNonNull(factory, "factory");
+        this.maxSize = maxSize;
+        this.onEvict = onEvict;
+        boolean bounded = maxSize != Integer.MAX_VALUE;
+        this.insertionOrder = bounded ? new ConcurrentLinkedQueue<>() : null;
+        this.size = bounded ? new AtomicInteger() : null;
+    }
+
+    /**
+     * @param factory creates the instance of a key, called at most once per key
+     */
+    public static <K, V> Multiton<K, V> of(Function<? super K, ? extends V> factory) {
+        return new Multiton<>(factory, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * @param factory creates the instance of a key, called again if the key was evicted
+     * @param maxSize number of keys kept before evicting
+     * @param onEvict called once with the instance of an evicted key, e.g. to close it, may be null.
+     *                If the key is evicted while its instance is being created, it is called when
+     *                creation completes, so the caller which asked for it gets an evicted instance
+     */
+    public static <K, V> Multiton<K, V> bounded(Function<? super K, ? extends V> factory, int maxSize,
+                                                Consumer<? super V> onEvict) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        return new Multiton<>(factory, maxSize, onEvict);
+    }
+
+    public V getInstance(K key) {
+        Entry<V> entry = instances.get(key); //no allocation when key is present
+        if (entry == null) {
+            entry = register(key);
+        } else if (insertionOrder != null && !entry.referenced) {
+            entry.referenced = true; //write only when changed, avoids cache line ping-pong on hot keys
+        }
+        return entry.instance.get();
+    }
+
+    public boolean contains(K key) {
+        return instances.containsKey(key);
+    }
+
+    public int size() {
+        return instances.size();
+    }
+
+    private Entry<V> register(K key) {
+        Objects.requireNonNull(key, "key");
+        Entry<V> created = new Entry<>(() -> factory.apply(key), onEvict);
+        Entry<V> existing = instances.putIfAbsent(key, created); //creation happens later, outside map locks
+        if (existing != null) {
+            return existing;
+        }
+        if (insertionOrder != null) {
+            insertionOrder.offer(key);
+            if (size.incrementAndGet() > maxSize) {
+                evict();
+            }
+        }
+        return created;
+    }
+
+    private void evict() {
+        int secondChances = maxSize; //bounded so that keys re-used concurrently cannot keep us spinning
+        while (size.get() > maxSize) {
+            K candidate = insertionOrder.poll();
+            if (candidate == null) {
+                return;
+            }
+            Entry<V> entry = instances.get(candidate);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.referenced && secondChances-- > 0) { //used since last sweep, give it a second chance
+                entry.referenced = false;
+                insertionOrder.offer(candidate);
+                continue;
+            }
+            if (instances.remove(candidate, entry)) {
+                size.decrementAndGet();
+                entry.evicted();
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        private final Lazy<V> instance;
+        private final Consumer<? super V> onEvict;
+        private volatile boolean referenced;
+        //guarded by this, eviction and the end of creation may race, one of them sees the other
+        private V created;
+        private boolean evicted;
+
+        private Entry(Supplier<? extends V> factory, Consumer<? super V> onEvict) {
+            this.onEvict = onEvict;
+            this.instance = onEvict == null ? Lazy.of(factory) : Lazy.of(() -> created(factory.get()));
+        }
+
+        private synchronized V created(V value) {
+            created = value;
+            if (evicted) {
+                onEvict.accept(value);
+            }
+            return value;
+        }
+
+        private synchronized void evicted() {
+            evicted = true;
+            if (created != null && onEvict != null) {
+                onEvict.accept(created);
+                created = null; //the entry may still be referenced by a caller, the instance need not
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package creational;
+
+/** Hook placed inside the unsafe window of an example, e.g. between the null check and the
+ * assignment in LazySingleton. Does nothing by default, tests install a barrier here to hold
+ * every thread inside the window and so reproduce the race deterministically, without sleeping
+ *
+ * @author mohit
+ */
+@FunctionalInterface
+public interface RacePoint {
+
+    RacePoint NONE = () -> {
+    };
+
+    void reached() throws InterruptedException;
+}
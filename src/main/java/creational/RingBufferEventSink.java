@@ -0,0 +1,175 @@
+package creational;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/** EventSink which never blocks the emitting thread
+ * Events go into a preallocated ring buffer, producers claim a slot with a CAS, a single background
+ * writer thread drains the buffer in batches and flushes the output once per batch
+ * When the buffer is full the event is dropped and counted rather than making the caller wait
+ * An idle writer parks until the next event, the producer of which unparks it
+ * If the output fails, the failure is kept and reported on close, later events are dropped and counted
+ *
+ * @author mohit
+ */
+public final class RingBufferEventSink implements EventSink, AutoCloseable {
+
+    private static final int MAX_BATCH = 256;
+
+    private final String[] events;
+    private final AtomicLongArray published; //sequence last published in each slot
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(); //next sequence handed to a producer
+    private final AtomicLong consumed = new AtomicLong(); //next sequence the writer reads
+    private final LongAdder dropped = new LongAdder();
+    private final BufferedWriter out;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean sleeping; //writer parked or about to, producers must unpark it
+    private volatile IOException failure; //first failure of the output, null while it works
+
+    /**
+     * @param out      destination of the events, one per line
+     * @param capacity events buffered, rounded up to a power of two
+     */
+    public RingBufferEventSink(OutputStream out, int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.events = new String[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        this.writer = new Thread(this::drainLoop, "event-sink-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void emit(String event) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() >= events.length) {
+                dropped.increment(); //full, never block the kitchen on logging
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        int slot = (int) sequence & mask;
+        events[slot] = String.valueOf(event);
+        //volatile, not lazySet: either the writer sees the event before parking or we see it sleeping
+        published.set(slot, sequence);
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * @return events not written, because the buffer was full or the output failed
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return first failure of the output, null if it never failed
+     */
+    public IOException failure() {
+        return failure;
+    }
+
+    Thread.State writerState() {
+        return writer.getState();
+    }
+
+    /**
+     * Stop the writer after it has written every event emitted so far
+     *
+     * @throws UncheckedIOException if the output failed, events emitted since were dropped
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IOException failure = this.failure;
+        if (failure != null) {
+            throw new UncheckedIOException("Event output failed, " + dropped() + " events dropped", failure);
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (drainBatch() == 0) {
+                sleeping = true;
+                if (running && !isPublished(consumed.get())) { //re-check, an event may have raced the flag
+                    LockSupport.park(this);
+                }
+                sleeping = false;
+            }
+        }
+        while (drainBatch() > 0) {
+            //write what was emitted before close
+        }
+    }
+
+    private boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == sequence;
+    }
+
+    private int drainBatch() {
+        long sequence = consumed.get();
+        int count = 0;
+        boolean writing = failure == null;
+        while (count < MAX_BATCH && isPublished(sequence)) {
+            int slot = (int) sequence & mask;
+            if (writing) {
+                writing = write(events[slot]);
+            }
+            if (!writing) {
+                dropped.increment();
+            }
+            events[slot] = null;
+            sequence++;
+            count++;
+        }
+        if (count > 0) {
+            consumed.lazySet(sequence); //slots can be reused by producers
+            if (writing) {
+                try {
+                    out.flush(); //one write call for the whole batch
+                } catch (IOException e) {
+                    failure = e; //the batch may be partly written, it is not counted as dropped
+                }
+            }
+        }
+        return count;
+    }
+
+    private boolean write(String event) {
+        try {
+            out.write(event);
+            out.newLine();
+            return true;
+        } catch (IOException e) {
+            failure = e;
+            return false;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package creational;
 
 import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.function.Supplier;
 
 /** This class represent various implementation of Singleton design pattern in Java
  * Singleton pattern => class has only one instance, and provides a global point of access to it
@@ -14,14 +15,15 @@ public class Singleton {
     public static class LazySingleton implements Serializable, Cloneable {
 
         private static LazySingleton uniqueInstance; //just declare
+        static volatile RacePoint racePoint = RacePoint.NONE; //tests hold threads in the unsafe window here
 
         private LazySingleton() {
         } //private constructor to avoid object creating outside of this class
 
         public static LazySingleton getInstance() throws InterruptedException {
             if (uniqueInstance == null) {      //Not Thread Safe, can lead to more than one instance if used in multithreaded env
-                System.out.println("Thread entering if block " + Thread.currentThread().getName());
-                Thread.sleep(1000);      //To mimic thread unsafety
+                EventSinks.current().emit("Thread entering if block " + Thread.currentThread().getName());
+                racePoint.reached();      //To mimic thread unsafety, every thread held here creates its own instance
                 uniqueInstance = new LazySingleton(); //initialise on demand
             }
             return uniqueInstance;
@@ -105,11 +107,75 @@ public class Singleton {
             private static final BillPughSingleton uniqueInstance = new BillPughSingleton();
         }
 
-        public BillPughSingleton getInstance() {
+        public static BillPughSingleton getInstance() {
             return BillPughSingletonHelper.uniqueInstance;
         }
     }
 
+    //Not global at all: one instance per thread, for per-worker objects, nothing shared between cores
+    //Lives as long as its thread unless released, so call release() when a pooled thread is done with it
+    //On virtual threads, one per task, every task gets and drops its own instance
+    public static class ThreadLocalSingleton {
+
+        private static final ThreadLocal<ThreadLocalSingleton> INSTANCE =
+                ThreadLocal.withInitial(ThreadLocalSingleton::new);
+
+        private ThreadLocalSingleton() {
+        }
+
+        public static ThreadLocalSingleton getInstance() {
+            return INSTANCE.get(); //no lock, the map of the current thread
+        }
+
+        public static void release() { //the next getInstance() on this thread creates a new instance
+            INSTANCE.remove();
+        }
+    }
+
+    //One instance per scope, for per-request objects: bound when the outermost callScoped/runScoped starts,
+    //unbound when it ends, also on exceptions, nested scopes share it. Nothing leaks into pooled threads
+    //Same contract as a java.lang.ScopedValue binding, which is a preview API up to JDK 24, held in a
+    //ThreadLocal until the build moves to a JDK where ScopedValue is final. Not inherited by new threads
+    //ScopedValueBenchmark in benchmarks/ measures it against a real ScopedValue
+    public static class ScopedSingleton {
+
+        private static final ThreadLocal<ScopedSingleton> BOUND = new ThreadLocal<>();
+
+        private ScopedSingleton() {
+        }
+
+        public static <T> T callScoped(Supplier<T> task) {
+            if (BOUND.get() != null) {
+                return task.get(); //nested, the outermost scope owns the instance
+            }
+            BOUND.set(new ScopedSingleton());
+            try {
+                return task.get();
+            } finally {
+                BOUND.remove();
+            }
+        }
+
+        public static void runScoped(Runnable task) {
+            callScoped(() -> {
+                task.run();
+                return null;
+            });
+        }
+
+        public static ScopedSingleton getInstance() {
+            ScopedSingleton instance = BOUND.get();
+            if (instance == null) {
+                throw new IllegalStateException("ScopedSingleton is only available inside callScoped/runScoped");
+            }
+            return instance;
+        }
+
+        public static boolean isBound() {
+            return BOUND.get() != null;
+        }
+    }
+
     //Use of enum to create singleton object - Joshua Bloch Effective Java
     /** Use of enum type for Singleton has the following advantages
      * By default, enum has private constructor so no instantiation outside enum possible
@@ -0,0 +1,148 @@
+package creational;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/** Singleton holder whose instance can be replaced at runtime, read-copy-update style
+ * get() is a single acquire load (a plain load on x86), no lock and no write on the read path
+ * swap() publishes the new instance with one release store, readers move over on their next get()
+ *
+ * Quiescence is opt-in: readers which keep the instance for a while use read(...), which counts
+ * them on the published version, and swapAndRetire(...) waits until no such reader holds the old
+ * instance before handing it to a cleanup, e.g. to close its connections
+ *
+ * @author mohit
+ */
+public final class Swappable<T> implements Supplier<T> {
+
+    private static final VarHandle VALUE;
+    private static final VarHandle VERSION;
+    private static final int STRIPES = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1), 64);
+    private static final int STRIDE = 16; //longs, readers on different stripes do not share a cache line
+    private static final int SPINS = 1_000; //before a retiring writer starts parking
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VALUE = lookup.findVarHandle(Swappable.class, "value", Object.class);
+            VERSION = lookup.findVarHandle(Swappable.class, "version", Version.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unused") //accessed via VALUE
+    private Object value;
+    @SuppressWarnings("unused") //accessed via VERSION
+    private Version<T> version;
+    private final Object writeLock = new Object();
+
+    private Swappable(T initial) {
+        VERSION.setVolatile(this, new Version<>(initial));
+        VALUE.setVolatile(this, initial);
+    }
+
+    /**
+     * @param initial instance, must not be null
+     */
+    public static <T> Swappable<T> of(T initial) {
+        return new Swappable<>(Objects.requireNonNull(initial, "initial"));
+    }
+
+    /**
+     * @return current instance, use it for the call at hand rather than keeping it
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get() {
+        return (T) VALUE.getAcquire(this);
+    }
+
+    /**
+     * Publish next, readers arriving after this call see it. Does not wait for readers of the old instance
+     *
+     * @return previous instance
+     */
+    public T swap(T next) {
+        return publish(next).value;
+    }
+
+    /**
+     * Publish next, wait until no read(...) holds the old instance any more, then pass it to retire
+     * Readers using get() are not tracked, only use this when the old instance is reached through read(...)
+     *
+     * @return previous instance, already retired
+     */
+    public T swapAndRetire(T next, Consumer<? super T> retire) {
+        Version<T> previous = publish(next);
+        previous.awaitQuiescence();
+        retire.accept(previous.value);
+        return previous.value;
+    }
+
+    /**
+     * Tracked read: the instance passed to reader is not retired before reader returns
+     * Costs two atomic increments on a per thread stripe on top of get()
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R read(Function<? super T, ? extends R> reader) {
+        int stripe = stripe();
+        Version<T> current;
+        while (true) {
+            current = (Version<T>) VERSION.getVolatile(this);
+            current.readers.getAndIncrement(stripe);
+            if (VERSION.getVolatile(this) == current) {
+                break;
+            }
+            current.readers.getAndDecrement(stripe); //swapped meanwhile, its writer may be retiring it
+        }
+        try {
+            return reader.apply(current.value);
+        } finally {
+            current.readers.getAndDecrement(stripe);
+        }
+    }
+
+    private Version<T> publish(T next) {
+        Objects.requireNonNull(next, "next");
+        synchronized (writeLock) { //writers one at a time, readers are never blocked
+            @SuppressWarnings("unchecked")
+            Version<T> previous = (Version<T>) VERSION.getVolatile(this);
+            VERSION.setVolatile(this, new Version<>(next));
+            VALUE.setRelease(this, next);
+            return previous;
+        }
+    }
+
+    private static int stripe() {
+        return ((int) (Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L >>> 32) & (STRIPES - 1)) * STRIDE;
+    }
+
+    private static final class Version<T> {
+        private final T value;
+        //readers per stripe, a thread increments and decrements the same stripe so none ever goes below 0
+        private final AtomicLongArray readers = new AtomicLongArray(STRIPES * STRIDE);
+
+        private Version(T value) {
+            this.value = value;
+        }
+
+        private void awaitQuiescence() {
+            for (int stripe = 0, spins = 0; stripe < readers.length(); ) {
+                if (readers.get(stripe) == 0) {
+                    stripe += STRIDE; //readers arriving later see the new version and back off
+                } else if (++spins < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(10_000);
+                }
+            }
+        }
+    }
+}
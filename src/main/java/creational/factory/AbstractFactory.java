@@ -1,5 +1,8 @@
 package creational.factory;
 
+import creational.EventSinks;
+import creational.Lazy;
+
 /**
  * Provide an interface for creating families of related products
  *
@@ -12,23 +15,54 @@ public class AbstractFactory {
     }
 }
 
-class DelhiPizzaStoreFactory extends BasePizzaStore {
+//Store of any region whose menu comes from the MenuCatalog instead of code
+class CatalogPizzaStore extends BasePizzaStore {
+
+    private final Lazy<PizzaMenu> menu; //decoded on the first order of the region, then no catalog lookup
+
+    CatalogPizzaStore(MenuCatalog catalog, String region) {
+        if (!catalog.offers(region)) {
+            throw new IllegalArgumentException("Unknown region: " + region);
+        }
+        this.menu = Lazy.of(() -> catalog.menu(region));
+    }
 
     @Override
     public Pizza getPizza(String type) {
-        return null; //pizza creation based on pizza offered by delhi pizza store
+        return menu.get().create(type);
+    }
+
+    @Override
+    PizzaMenu menu() {
+        return menu.get();
+    }
+}
+
+class DelhiPizzaStoreFactory extends CatalogPizzaStore {
+
+    DelhiPizzaStoreFactory(MenuCatalog catalog) {
+        super(catalog, "delhi"); //pizza creation based on pizza offered by delhi pizza store
     }
 }
 
 class MumbaiPizzaStore extends BasePizzaStore {
 
+    //one shared, caching ingredient factory for the region instead of a new one per order
+    private static final PizzaIngredientFactory INGREDIENTS = PizzaIngredientFactories.shared().forRegion("mumbai");
+
+    private static final PizzaMenu MENU = PizzaMenu.builder()
+            //mumbai pizza store will get ingredient from mumbai ingredient factory
+            .add("cheese", () -> new MumbaiCheesePizza(INGREDIENTS))
+            .build(); //other pizza types based on mumbai pizza store
+
     @Override
     public Pizza getPizza(String type) {
-        PizzaIngredientFactory factory = new MumbaiPizzaIngredientFactory();
-        if (type.equals("cheese")) {
-            return new MumbaiCheesePizza(factory); //mumbai pizza store will get ingredient from mumbai ingredient factory
-        }
-        return null; //other pizza types based on mumbai pizza store
+        return MENU.create(type);
+    }
+
+    @Override
+    PizzaMenu menu() {
+        return MENU;
     }
 }
 
@@ -42,10 +76,8 @@ class MumbaiCheesePizza extends Pizza {
 
     @Override
     public void prepare() {
-        System.out.println("Preparing " + getType());
-        factory.createDough(); //use factory to create object based on ingredient factory actual type
-        factory.createCheese();
-        factory.createSauce();
+        EventSinks.current().emit("Preparing " + getType());
+        factory.createIngredients(); //use factory to create object based on ingredient factory actual type
     }
 
     @Override
@@ -54,6 +86,26 @@ class MumbaiCheesePizza extends Pizza {
     }
 }
 
+class DelhiCheesePizza extends Pizza {
+
+    private final PizzaIngredientFactory factory;
+
+    public DelhiCheesePizza(PizzaIngredientFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public void prepare() {
+        EventSinks.current().emit("Preparing " + getType());
+        factory.createIngredients();
+    }
+
+    @Override
+    public String getType() {
+        return "delhi cheese pizza";
+    }
+}
+
 //It defines family of products needed to create pizza
 interface PizzaIngredientFactory {
     Dough createDough();
@@ -61,6 +113,15 @@ interface PizzaIngredientFactory {
     Cheese createCheese();
 
     Sauce createSauce();
+
+    //the whole family, one after the other. ParallelIngredientFactory sources them concurrently
+    default Ingredients createIngredients() {
+        return new Ingredients(createDough(), createCheese(), createSauce());
+    }
+}
+
+//One family of ingredients, everything prepare() needs
+record Ingredients(Dough dough, Cheese cheese, Sauce sauce) {
 }
 
 class DelhiPizzaIngredientFactory implements PizzaIngredientFactory {
@@ -101,30 +162,34 @@ class MumbaiPizzaIngredientFactory implements PizzaIngredientFactory {
     }
 }
 
+//Ingredient without state, a single instance can be shared by every pizza (flyweight)
+interface SharedIngredient {
+}
+
 //A sample product type which will be created from factory
 interface Dough {
 }
 
 //Sample concrete product from a specific ingredient factory based on region
-class ThinCrustDough implements Dough {
+class ThinCrustDough implements Dough, SharedIngredient {
 }
 
-class ThickCrustDough implements Dough {
+class ThickCrustDough implements Dough, SharedIngredient {
 }
 
 interface Sauce {
 }
 
-class PlumTomatoSauce implements Sauce {
+class PlumTomatoSauce implements Sauce, SharedIngredient {
 }
 
-class MarinaraSauce implements Sauce {
+class MarinaraSauce implements Sauce, SharedIngredient {
 }
 
-class MozrellaCheese implements Cheese {
+class MozrellaCheese implements Cheese, SharedIngredient {
 }
 
-class ReggianoCheese implements Cheese {
+class ReggianoCheese implements Cheese, SharedIngredient {
 }
 
 interface Cheese {
@@ -0,0 +1,298 @@
+package creational.factory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Admission control in front of an order path: an order is admitted or rejected when it arrives,
+ * before it queues anywhere, so under a burst the orders which get in keep a bounded latency and the
+ * rest fail fast with an OrderRejectedException instead of waiting without bound
+ *
+ * Up to three limits, each opt-in, checked in this order:
+ * - in-flight limit, a hard cap on orders admitted and not yet completed
+ * - adaptive concurrency limit (AIMD): grows by about one per round of orders completing within the
+ *   target latency, shrinks by 10% when an order takes longer, at most once per target latency
+ * - token bucket rate limit, orders per second with a burst allowance
+ *
+ * Configure before the instance is shared between threads
+ */
+final class AdmissionControl {
+
+    private static final double BACKOFF = 0.9;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder[] rejected = new LongAdder[OrderRejectedException.Reason.values().length];
+
+    private int maxInFlight = Integer.MAX_VALUE;
+
+    private boolean adaptive;
+    private double minLimit;
+    private double maxLimit;
+    private long targetNanos;
+    private final AtomicLong limitBits = new AtomicLong(Double.doubleToLongBits(Integer.MAX_VALUE));
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+
+    private long intervalNanos; //0 unless rate limited
+    private long burstNanos;
+    private final AtomicLong emptyAt = new AtomicLong(Long.MIN_VALUE); //time at which the bucket holds no token
+
+    AdmissionControl() {
+        for (int i = 0; i < rejected.length; i++) {
+            rejected[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param maxInFlight orders admitted and not completed at most
+     */
+    AdmissionControl maxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * @param ordersPerSecond sustained rate
+     * @param burst           orders admitted at once after a quiet period
+     */
+    AdmissionControl rateLimit(double ordersPerSecond, int burst) {
+        if (!(ordersPerSecond > 0) || burst <= 0) {
+            throw new IllegalArgumentException("rate and burst must be positive: " + ordersPerSecond + ", " + burst);
+        }
+        this.intervalNanos = Math.max(1, (long) (1e9 / ordersPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        return this;
+    }
+
+    /**
+     * @param initial       concurrency limit to start from
+     * @param targetLatency from admission to completion, queueing included; slower orders shrink the limit
+     */
+    AdmissionControl adaptiveLimit(int initial, int min, int max, Duration targetLatency) {
+        if (min <= 0 || initial < min || max < initial) {
+            throw new IllegalArgumentException("need 0 < min <= initial <= max: " + min + ", " + initial + ", " + max);
+        }
+        this.adaptive = true;
+        this.minLimit = min;
+        this.maxLimit = max;
+        this.targetNanos = targetLatency.toNanos();
+        limitBits.set(Double.doubleToLongBits(initial));
+        return this;
+    }
+
+    /**
+     * Admit an order, pair with exactly one release(...)
+     *
+     * @return admission time, pass it to release
+     * @throws OrderRejectedException without waiting, nothing has been admitted
+     */
+    long admit() {
+        int limit = limit();
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                throw reject(current >= maxInFlight ? OrderRejectedException.Reason.IN_FLIGHT_LIMIT
+                        : OrderRejectedException.Reason.CONCURRENCY_LIMIT, current, limit);
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        long now = System.nanoTime();
+        if (intervalNanos > 0 && !takeToken(now)) {
+            inFlight.decrementAndGet();
+            throw reject(OrderRejectedException.Reason.RATE_LIMIT, current, limit);
+        }
+        admitted.increment();
+        return now;
+    }
+
+    /**
+     * Admit every order of a batch or none of them, a batch larger than the limit is always rejected
+     *
+     * @return admission time per order, pass them to releaseAll
+     * @throws OrderRejectedException without waiting, nothing has been admitted
+     */
+    long[] admitAll(int orders) {
+        long[] admittedAt = new long[orders];
+        int count = 0;
+        try {
+            for (; count < orders; count++) {
+                admittedAt[count] = admit();
+            }
+        } catch (OrderRejectedException e) {
+            for (int i = 0; i < count; i++) {
+                release(admittedAt[i], false);
+            }
+            admitted.add(-count); //the batch was rejected as a whole
+            throw e;
+        }
+        return admittedAt;
+    }
+
+    /**
+     * The admitted order is done
+     *
+     * @param completed false if it failed, e.g. unknown type; it then does not count as a latency sample
+     */
+    void release(long admittedAt, boolean completed) {
+        inFlight.decrementAndGet();
+        if (adaptive && completed) {
+            long now = System.nanoTime();
+            adapt(now, now - admittedAt);
+        }
+    }
+
+    /**
+     * Every order of an admitted batch is done
+     */
+    void releaseAll(long[] admittedAt, boolean completed) {
+        for (long at : admittedAt) {
+            release(at, completed);
+        }
+    }
+
+    /**
+     * admit, cook the order on the caller thread, release
+     */
+    Pizza order(String type, Function<String, Pizza> orders) {
+        long admittedAt = admit();
+        boolean completed = false;
+        try {
+            Pizza pizza = orders.apply(type);
+            completed = true;
+            return pizza;
+        } finally {
+            release(admittedAt, completed);
+        }
+    }
+
+    /**
+     * admit on the caller thread, so a rejected order never reaches the executor's queue, cook on the executor
+     *
+     * @return future completed with the pizza, or exceptionally with OrderRejectedException
+     */
+    CompletableFuture<Pizza> orderAsync(String type, Function<String, Pizza> orders, Executor executor) {
+        long admittedAt;
+        try {
+            admittedAt = admit();
+        } catch (OrderRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                boolean completed = false;
+                try {
+                    Pizza pizza = orders.apply(type);
+                    completed = true;
+                    return pizza;
+                } finally {
+                    release(admittedAt, completed);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            release(admittedAt, false);
+            throw e;
+        }
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return orders which may be in flight right now, the lower of in-flight and adaptive limit
+     */
+    int limit() {
+        return adaptive ? Math.min(maxInFlight, (int) Double.longBitsToDouble(limitBits.get())) : maxInFlight;
+    }
+
+    long admitted() {
+        return admitted.sum();
+    }
+
+    long rejected(OrderRejectedException.Reason reason) {
+        return rejected[reason.ordinal()].sum();
+    }
+
+    long rejected() {
+        long total = 0;
+        for (LongAdder count : rejected) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    private boolean takeToken(long now) {
+        while (true) { //generic cell rate algorithm, one CAS instead of refilling a token count
+            long empty = emptyAt.get();
+            long next = Math.max(empty, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (emptyAt.compareAndSet(empty, next)) {
+                return true;
+            }
+        }
+    }
+
+    private void adapt(long now, long latency) {
+        if (latency > targetNanos) {
+            long last = lastDecrease.get();
+            //once per target latency, orders admitted before the last decrease are still completing
+            if (now - last >= targetNanos && lastDecrease.compareAndSet(last, now)) {
+                long bits;
+                do {
+                    bits = limitBits.get();
+                } while (!limitBits.compareAndSet(bits,
+                        Double.doubleToLongBits(Math.max(minLimit, Double.longBitsToDouble(bits) * BACKOFF))));
+            }
+            return;
+        }
+        long bits;
+        double limit;
+        do {
+            bits = limitBits.get();
+            limit = Double.longBitsToDouble(bits);
+            if (inFlight.get() * 2 < limit) {
+                return; //only grow while the limit is actually used
+            }
+        } while (!limitBits.compareAndSet(bits, Double.doubleToLongBits(Math.min(maxLimit, limit + 1 / limit))));
+    }
+
+    private OrderRejectedException reject(OrderRejectedException.Reason reason, int inFlight, int limit) {
+        rejected[reason.ordinal()].increment();
+        return new OrderRejectedException(reason, inFlight, limit);
+    }
+}
+
+/**
+ * An order was not admitted, typed so callers can tell overload from a bad order and back off
+ * Carries no stack trace, rejecting must stay cheap when the store is overloaded
+ */
+class OrderRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    enum Reason {
+        IN_FLIGHT_LIMIT, CONCURRENCY_LIMIT, RATE_LIMIT
+    }
+
+    private final Reason reason;
+
+    OrderRejectedException(Reason reason, int inFlight, int limit) {
+        super(reason + ", " + inFlight + " orders in flight, limit " + limit, null, false, false);
+        this.reason = reason;
+    }
+
+    Reason reason() {
+        return reason;
+    }
+}
@@ -0,0 +1,153 @@
+package creational.factory;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Discrete-event scheduler on a virtual clock: timed events wait in a binary heap of parallel
+ * primitive arrays and run() fires them in time order, moving the clock to each event's time
+ * Nothing sleeps, a simulated day takes as long as firing its events. Events at the same time fire
+ * in the order they were scheduled. Single threaded, one scheduler per thread
+ */
+final class EventScheduler {
+
+    /**
+     * Reacts to an event, may schedule further events
+     */
+    @FunctionalInterface
+    interface Handler {
+        void fire(int data, long now);
+    }
+
+    private Handler[] handlers = new Handler[4];
+    private int handlerCount;
+
+    //heap ordered by (time, sequence), entry i lives at index i of every array
+    private long[] times = new long[64];
+    private long[] sequences = new long[64];
+    private int[] targets = new int[64];
+    private int[] data = new int[64];
+    private int size;
+
+    private long now;
+    private long nextSequence;
+    private long fired;
+
+    /**
+     * @return id to schedule events for the handler with
+     */
+    int register(Handler handler) {
+        if (handlerCount == handlers.length) {
+            handlers = Arrays.copyOf(handlers, handlerCount * 2);
+        }
+        handlers[handlerCount] = Objects.requireNonNull(handler, "handler");
+        return handlerCount++;
+    }
+
+    /**
+     * @param at virtual time in nanos, not before now()
+     */
+    void schedule(int handler, long at, int eventData) {
+        if (at < now) {
+            throw new IllegalArgumentException("event at " + at + " is before now " + now);
+        }
+        if (size == times.length) {
+            grow();
+        }
+        int i = size++;
+        long sequence = nextSequence++;
+        while (i > 0) { //sift up
+            int parent = (i - 1) >>> 1;
+            if (earlier(parent, at, sequence)) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        set(i, at, sequence, handler, eventData);
+    }
+
+    /**
+     * Fire events in time order until there are none left
+     *
+     * @return events fired by this call
+     */
+    long run() {
+        long start = fired;
+        while (size > 0) {
+            long at = times[0];
+            int target = targets[0];
+            int eventData = data[0];
+            removeFirst();
+            now = at;
+            fired++;
+            handlers[target].fire(eventData, at);
+        }
+        return fired - start;
+    }
+
+    /**
+     * @return virtual time in nanos, time of the event firing or last fired
+     */
+    long now() {
+        return now;
+    }
+
+    long fired() {
+        return fired;
+    }
+
+    int pending() {
+        return size;
+    }
+
+    private void removeFirst() {
+        int last = --size;
+        if (last == 0) {
+            return;
+        }
+        long at = times[last];
+        long sequence = sequences[last];
+        int target = targets[last];
+        int eventData = data[last];
+        int i = 0;
+        int half = last >>> 1;
+        while (i < half) { //sift down
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < last && earlier(right, times[child], sequences[child])) {
+                child = right;
+            }
+            if (!earlier(child, at, sequence)) {
+                break;
+            }
+            move(child, i);
+            i = child;
+        }
+        set(i, at, sequence, target, eventData);
+    }
+
+    //entry at index fires before an event at (at, sequence), sequences are unique so there is no tie
+    private boolean earlier(int index, long at, long sequence) {
+        return times[index] < at || times[index] == at && sequences[index] < sequence;
+    }
+
+    private void move(int from, int to) {
+        set(to, times[from], sequences[from], targets[from], data[from]);
+    }
+
+    private void set(int i, long at, long sequence, int target, int eventData) {
+        times[i] = at;
+        sequences[i] = sequence;
+        targets[i] = target;
+        data[i] = eventData;
+    }
+
+    private void grow() {
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        data = Arrays.copyOf(data, capacity);
+    }
+}
@@ -1,5 +1,11 @@
 package creational.factory;
 
+import creational.EventSinks;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * Let subclass decide object instantiation
  */
@@ -8,41 +14,154 @@ public class FactoryMethod {
     public static void main(String[] args) {
         PunePizzaStore punePizzaStore = new PunePizzaStore();
         Pizza pizza = punePizzaStore.orderPizza("tandoori");
-        System.out.println(pizza.getType() +" pizza for you");
+        EventSinks.current().emit(pizza.getType() + " pizza for you");
 
         BengaluruPizzaStore bengaluruPizzaStore = new BengaluruPizzaStore();
         pizza = bengaluruPizzaStore.orderPizza("cheese");
-        System.out.println(pizza.getType() +" pizza for you");
+        EventSinks.current().emit(pizza.getType() + " pizza for you");
     }
 }
 
 abstract class BasePizzaStore {
 
+    //admission, pooling, metrics, journal, kitchen: everything of an order but creating the pizza
+    private final OrderPipeline orders = new OrderPipeline(this::getPizza, this::menu);
+
+    /**
+     * @throws OrderRejectedException if admission control is enabled and the store is at its limit
+     */
     public Pizza orderPizza(String type) {
-        Pizza pizza = getPizza(type); //subclass will take care of instantiation
-        pizza.prepare();
-        pizza.bake();
-        pizza.cut();
-        pizza.box();
-        return pizza;
+        return orders.order(type);
+    }
+
+    /**
+     * Order without blocking the caller, by default every order runs on its own virtual thread
+     *
+     * @param type of pizza
+     * @return future completed with the boxed pizza, or exceptionally e.g. for unknown type or with an
+     * OrderRejectedException, admission happens before the order is queued on the executor
+     */
+    public CompletableFuture<Pizza> orderPizzaAsync(String type) {
+        return orders.orderAsync(type);
+    }
+
+    /**
+     * Cook a batch of orders in the kitchen pipeline, stages of different orders overlap
+     * Admission, metrics and journal apply to every order of the batch as to single orders
+     *
+     * @param types of pizza, one per order
+     * @return pizzas in the order of types
+     * @throws OrderRejectedException if admission control is enabled and the whole batch does not fit its limit
+     */
+    public List<Pizza> orderPizzas(List<String> types) throws InterruptedException {
+        return orders.orderBatch(types);
+    }
+
+    /**
+     * Delivery of the pizza is complete, in pooled mode it is recycled and must not be used any more
+     */
+    public void deliver(Pizza pizza) {
+        orders.deliver(pizza);
+    }
+
+    /**
+     * Opt-in pooled mode, orderPizza hands out recycled pizzas which callers give back with deliver(pizza)
+     * Only stores backed by a PizzaMenu support it. Enable before the store is shared between threads
+     *
+     * @param capacityPerType pizzas kept per type and thread
+     */
+    public BasePizzaStore enablePooling(int capacityPerType) {
+        orders.enablePooling(capacityPerType);
+        return this;
+    }
+
+    /**
+     * Record every completed order in the journal, OrderJournal.replay feeds them to a store again
+     * Enable before the store is shared between threads
+     */
+    public BasePizzaStore enableJournal(OrderJournal journal) {
+        orders.enableJournal(journal);
+        return this;
+    }
+
+    /**
+     * Admit or reject every order on arrival, orderPizza throws and orderPizzaAsync fails fast with an
+     * OrderRejectedException once a limit is hit. Enable before the store is shared between threads
+     */
+    public BasePizzaStore enableAdmission(AdmissionControl admission) {
+        orders.enableAdmission(admission);
+        return this;
+    }
+
+    /**
+     * Count orders and time every lifecycle stage per pizza type, published over JMX
+     * Enable before the store is shared between threads
+     *
+     * @param storeName identifies the store in the JMX object names, unique among stores with metrics enabled
+     * @throws IllegalStateException if another store publishes metrics under the name
+     */
+    public BasePizzaStore enableMetrics(String storeName) {
+        orders.enableMetrics(storeName);
+        return this;
+    }
+
+    /**
+     * Stop recording metrics and unregister them from JMX, so the store name can be used again
+     */
+    public BasePizzaStore disableMetrics() {
+        orders.disableMetrics();
+        return this;
     }
 
-    public abstract Pizza getPizza(String type); //factory method
+    /**
+     * Replace the executor used by orderPizzaAsync, e.g. a bounded pool. Set before the store is shared
+     */
+    public BasePizzaStore orderExecutor(Executor executor) {
+        orders.orderExecutor(executor);
+        return this;
+    }
+
+    /**
+     * Opt-in boot time initialisation: load and initialise now what the first order would otherwise
+     * pay for, the event sink and every pizza class on the menu. Trades boot time for first order latency
+     */
+    public BasePizzaStore preInitialize() {
+        orders.preInitialize();
+        return this;
+    }
+
+    OrderMetrics metrics() {
+        return orders.metrics();
+    }
+
+    /**
+     * @return kitchen used by orderPizzas, to tune stage parallelism or read its report
+     */
+    Kitchen kitchen() {
+        return orders.kitchen();
+    }
+
+    Pizza newPizza(String type) {
+        return orders.newPizza(type); //pooled, or getPizza
+    }
+
+    PizzaMenu menu() { //menu the store creates its pizzas from, if any
+        return null;
+    }
+
+    public abstract Pizza getPizza(String type); //factory method, throws IllegalArgumentException for unknown type
 }
 
 class PunePizzaStore extends BasePizzaStore {
 
     @Override
     public Pizza getPizza(String type) {
-        Pizza pizza = null;
-        if (type.equals("cheese")) {
-            pizza = new PuneCheesePizza();
-        } else if (type.equals("extravaganza")) {
-            pizza = new PuneExtravaganzaPizza();
-        } else if (type.equals("tandoori")) {
-            pizza = new PuneTandooriPizza();
-        }
-        return pizza;
+        return PunePizzaTypes.create(type); //generated from the @PizzaType(store = "pune") classes
+    }
+
+    @Override
+    PizzaMenu menu() {
+        return PunePizzaTypes.menu();
     }
 }
 
@@ -50,23 +169,21 @@ class BengaluruPizzaStore extends BasePizzaStore {
 
     @Override
     public Pizza getPizza(String type) {
-        Pizza pizza = null;
-        if (type.equals("cheese")) {
-            pizza = new BengaluruCheesePizza();
-        } else if (type.equals("extravaganza")) {
-            pizza = new BengaluruExtravaganzaPizza();
-        } else if (type.equals("tandoori")) {
-            pizza = new BengaluruTandooriPizza();
-        }
-        return pizza;
+        return BengaluruPizzaTypes.create(type); //generated from the @PizzaType(store = "bengaluru") classes
+    }
+
+    @Override
+    PizzaMenu menu() {
+        return BengaluruPizzaTypes.menu();
     }
 }
 
+@PizzaType(store = "pune", name = "cheese")
 class PuneCheesePizza extends Pizza {
 
     @Override
     public void prepare() {
-        System.out.println("Preparing Pune Cheese");
+        EventSinks.current().emit("Preparing Pune Cheese");
     }
 
     @Override
@@ -75,11 +192,12 @@ class PuneCheesePizza extends Pizza {
     }
 }
 
+@PizzaType(store = "bengaluru", name = "cheese")
 class BengaluruCheesePizza extends Pizza {
 
     @Override
     public void prepare() {
-        System.out.println("Preparing Bengaluru Cheese");
+        EventSinks.current().emit("Preparing Bengaluru Cheese");
     }
 
     @Override
@@ -88,11 +206,12 @@ class BengaluruCheesePizza extends Pizza {
     }
 }
 
+@PizzaType(store = "pune", name = "tandoori")
 class PuneTandooriPizza extends Pizza {
 
     @Override
     public void prepare() {
-        System.out.println("Preparing Pune Tandoori");
+        EventSinks.current().emit("Preparing Pune Tandoori");
     }
 
     @Override
@@ -101,11 +220,12 @@ class PuneTandooriPizza extends Pizza {
     }
 }
 
+@PizzaType(store = "bengaluru", name = "extravaganza")
 class BengaluruExtravaganzaPizza extends Pizza {
 
     @Override
     public void prepare() {
-        System.out.println("Preparing Bengaluru Veg Extravaganza");
+        EventSinks.current().emit("Preparing Bengaluru Veg Extravaganza");
     }
 
     @Override
@@ -114,11 +234,12 @@ class BengaluruExtravaganzaPizza extends Pizza {
     }
 }
 
+@PizzaType(store = "pune", name = "extravaganza")
 class PuneExtravaganzaPizza extends Pizza {
 
     @Override
     public void prepare() {
-        System.out.println("Preparing Pune Veg Extravaganza");
+        EventSinks.current().emit("Preparing Pune Veg Extravaganza");
     }
 
     @Override
@@ -127,11 +248,12 @@ class PuneExtravaganzaPizza extends Pizza {
     }
 }
 
+@PizzaType(store = "bengaluru", name = "tandoori")
 class BengaluruTandooriPizza extends Pizza {
 
     @Override
     public void prepare() {
-        System.out.println("Preparing Bengaluru Tandoori");
+        EventSinks.current().emit("Preparing Bengaluru Tandoori");
     }
 
     @Override
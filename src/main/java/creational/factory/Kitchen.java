@@ -0,0 +1,353 @@
+package creational.factory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs prepare, bake, cut and box of a batch of orders as a pipeline: every stage has its own workers
+ * and hands pizzas to the next stage through a bounded queue, so order N+1 is prepared while order N bakes
+ *
+ * Per stage counters (pizzas, busy time, worker time, deepest input queue) are kept across batches,
+ * report() shows them with the utilization of each stage, the most utilized stage is the bottleneck
+ */
+final class Kitchen {
+
+    enum Stage {
+        PREPARE, BAKE, CUT, BOX
+    }
+
+    private static final Order END = new Order(null, null); //end of batch marker, one per worker of a stage
+
+    private final Function<String, Pizza> creator;
+    private final Consumer<Pizza> discard;
+    private final StageListener listener;
+    private final int[] parallelism = new int[Stage.values().length];
+    private int queueCapacity = 16;
+    private final Map<Stage, StageStats> stats = new EnumMap<>(Stage.class);
+    private int cooking; //guarded by this, batches in progress
+    private long cookingSince; //guarded by this
+    private long cookingNanos; //guarded by this, wall time with at least one batch cooking, overlaps counted once
+    private final ExecutorService workers;
+
+    /**
+     * @param creator creates the pizza of an order type, called by the PREPARE stage
+     */
+    Kitchen(Function<String, Pizza> creator) {
+        this(creator, pizza -> {
+        });
+    }
+
+    /**
+     * @param discard gets every pizza created for a batch which failed, e.g. to untrack pooled pizzas
+     */
+    Kitchen(Function<String, Pizza> creator, Consumer<Pizza> discard) {
+        this(creator, discard, (type, stage, nanos, failed) -> {
+        });
+    }
+
+    /**
+     * @param listener gets every stage of every created pizza, e.g. to time it per pizza type
+     */
+    Kitchen(Function<String, Pizza> creator, Consumer<Pizza> discard, StageListener listener) {
+        this.creator = creator;
+        this.discard = discard;
+        this.listener = listener;
+        Arrays.fill(parallelism, 1);
+        for (Stage stage : Stage.values()) {
+            stats.put(stage, new StageStats());
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(task -> { //idle workers die off between batches
+            Thread thread = new Thread(task, "kitchen-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    Kitchen parallelism(Stage stage, int workerCount) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("workerCount must be positive: " + workerCount);
+        }
+        parallelism[stage.ordinal()] = workerCount;
+        return this;
+    }
+
+    Kitchen queueCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.queueCapacity = capacity;
+        return this;
+    }
+
+    /**
+     * @param types of pizza, one per order
+     * @return boxed pizzas in the order of types
+     * @throws RuntimeException first failure of any order, e.g. IllegalArgumentException for unknown type,
+     * an Error of a stage is rethrown as is
+     * @throws InterruptedException if interrupted while waiting, the workers of the batch are cancelled
+     * and every pizza created for it is discarded
+     */
+    List<Pizza> cook(List<String> types) throws InterruptedException {
+        Stage[] stages = Stage.values();
+        int[] parallelism = this.parallelism.clone(); //of this batch, even if tuned meanwhile
+        Batch batch = new Batch();
+        List<BlockingQueue<Order>> queues = new ArrayList<>(); //queue i feeds stage i
+        for (int i = 0; i < stages.length; i++) {
+            queues.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+        Order[] orders = new Order[types.size()];
+        int totalWorkers = Arrays.stream(parallelism).sum();
+        CountDownLatch done = new CountDownLatch(totalWorkers);
+        List<Future<?>> running = new ArrayList<>(totalWorkers);
+
+        for (int i = 0; i < stages.length; i++) {
+            BlockingQueue<Order> in = queues.get(i);
+            BlockingQueue<Order> out = i + 1 < stages.length ? queues.get(i + 1) : null;
+            int next = i + 1 < stages.length ? parallelism[i + 1] : 0;
+            AtomicInteger stageRunning = new AtomicInteger(parallelism[i]);
+            for (int w = 0; w < parallelism[i]; w++) {
+                Stage stage = stages[i];
+                running.add(workers.submit(() -> {
+                    try {
+                        work(stage, in, out, next, stageRunning);
+                    } finally {
+                        done.countDown();
+                    }
+                }));
+            }
+        }
+
+        long start = startCooking();
+        try {
+            BlockingQueue<Order> first = queues.get(0);
+            for (int i = 0; i < orders.length; i++) {
+                orders[i] = new Order(types.get(i), batch);
+                first.put(orders[i]);
+            }
+            for (int w = 0; w < parallelism[0]; w++) {
+                first.put(END);
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            for (Future<?> worker : running) { //they would wait for orders or END forever
+                worker.cancel(true);
+            }
+            batch.abort().forEach(discard); //a worker still creating one discards it itself
+            throw e;
+        } finally {
+            long wall = stopCooking(start);
+            for (Stage stage : stages) {
+                stats.get(stage).workerNanos.add(wall * parallelism[stage.ordinal()]);
+            }
+        }
+
+        List<Pizza> pizzas = new ArrayList<>(orders.length);
+        for (Order order : orders) {
+            if (order.failure != null) {
+                batch.abort().forEach(discard); //the caller gets none of them
+                throw propagate(order.failure);
+            }
+            pizzas.add(order.pizza);
+        }
+        return pizzas;
+    }
+
+    private synchronized long startCooking() {
+        long now = System.nanoTime();
+        if (cooking++ == 0) {
+            cookingSince = now;
+        }
+        return now;
+    }
+
+    //@return wall time of the batch
+    private synchronized long stopCooking(long start) {
+        long now = System.nanoTime();
+        if (--cooking == 0) {
+            cookingNanos += now - cookingSince;
+        }
+        return now - start;
+    }
+
+    private synchronized long cookingNanos() {
+        return cooking == 0 ? cookingNanos : cookingNanos + System.nanoTime() - cookingSince;
+    }
+
+    private static RuntimeException propagate(Throwable failure) {
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            return (RuntimeException) failure;
+        }
+        return new IllegalStateException(failure); //checked exception thrown sneakily by a stage
+    }
+
+    private void work(Stage stage, BlockingQueue<Order> in, BlockingQueue<Order> out, int nextWorkers,
+                      AtomicInteger running) {
+        StageStats stageStats = stats.get(stage);
+        try {
+            for (Order order = in.take(); order != END; order = in.take()) {
+                stageStats.recordQueueDepth(in.size());
+                if (order.failure == null) { //failed orders just flow through to keep the pipeline simple
+                    long start = System.nanoTime();
+                    try {
+                        run(stage, order);
+                        listener.stageDone(order.type, stage, System.nanoTime() - start, false);
+                    } catch (Throwable e) { //Errors too, a dead worker would never forward END
+                        order.failure = e;
+                        if (order.pizza != null) { //creation failures, e.g. unknown type, are the creator's to count
+                            listener.stageDone(order.type, stage, System.nanoTime() - start, true);
+                        }
+                    }
+                    stageStats.busyNanos.add(System.nanoTime() - start);
+                    stageStats.pizzas.increment();
+                }
+                if (out != null) {
+                    out.put(order);
+                }
+            }
+            if (running.decrementAndGet() == 0 && out != null) { //last worker of the stage ends the next one
+                for (int w = 0; w < nextWorkers; w++) {
+                    out.put(END);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); //cancelled by cook
+        }
+    }
+
+    private void run(Stage stage, Order order) {
+        switch (stage) {
+            case PREPARE:
+                Pizza pizza = creator.apply(order.type);
+                if (!order.batch.created(pizza)) {
+                    discard.accept(pizza);
+                    throw new CancellationException("batch was interrupted");
+                }
+                order.pizza = pizza;
+                order.pizza.prepare();
+                break;
+            case BAKE:
+                order.pizza.bake();
+                break;
+            case CUT:
+                order.pizza.cut();
+                break;
+            case BOX:
+                order.pizza.box();
+                break;
+        }
+    }
+
+    long pizzas(Stage stage) {
+        return stats.get(stage).pizzas.sum();
+    }
+
+    long busyNanos(Stage stage) {
+        return stats.get(stage).busyNanos.sum();
+    }
+
+    int maxQueueDepth(Stage stage) {
+        return stats.get(stage).maxQueueDepth.get();
+    }
+
+    /**
+     * @return share of the time its workers were running that the stage was busy, the highest one is the
+     * bottleneck. Workers of concurrent batches all count, so it stays within 100%
+     */
+    double utilization(Stage stage) {
+        long workerNanos = stats.get(stage).workerNanos.sum();
+        return workerNanos == 0 ? 0 : (double) busyNanos(stage) / workerNanos;
+    }
+
+    /**
+     * @return one line per stage: pizzas, workers, average time per pizza, pizzas per second, utilization
+     * and deepest input queue seen
+     */
+    String report() {
+        double seconds = cookingNanos() / 1e9;
+        StringBuilder report = new StringBuilder(String.format("%-8s %8s %8s %12s %12s %12s %10s%n",
+                "stage", "pizzas", "workers", "avg ns", "pizzas/s", "utilization", "max queue"));
+        for (Stage stage : Stage.values()) {
+            long pizzas = pizzas(stage);
+            report.append(String.format("%-8s %8d %8d %12d %12.0f %11.1f%% %10d%n", stage, pizzas,
+                    parallelism[stage.ordinal()], pizzas == 0 ? 0 : busyNanos(stage) / pizzas,
+                    seconds == 0 ? 0 : pizzas / seconds, utilization(stage) * 100, maxQueueDepth(stage)));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Gets every stage a created pizza went through, on the worker thread of the stage
+     */
+    @FunctionalInterface
+    interface StageListener {
+
+        /**
+         * @param failed the stage threw, the order fails and its pizza skips the later stages
+         */
+        void stageDone(String type, Stage stage, long nanos, boolean failed);
+    }
+
+    private static final class Order {
+        private final String type;
+        private final Batch batch;
+        private Pizza pizza; //handed between stages through the queues, which publish it safely
+        private Throwable failure;
+
+        private Order(String type, Batch batch) {
+            this.type = type;
+            this.batch = batch;
+        }
+    }
+
+    //pizzas created for one batch, whoever comes second of an abort and a creation discards the pizza
+    private static final class Batch {
+        private final List<Pizza> created = new ArrayList<>(); //guarded by this
+        private boolean aborted; //guarded by this
+
+        //@return false if the batch was aborted, the caller must discard the pizza
+        private synchronized boolean created(Pizza pizza) {
+            if (aborted) {
+                return false;
+            }
+            created.add(pizza);
+            return true;
+        }
+
+        //@return pizzas created so far, none is added afterwards
+        private synchronized List<Pizza> abort() {
+            aborted = true;
+            return created;
+        }
+    }
+
+    private static final class StageStats {
+        private final LongAdder pizzas = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder workerNanos = new LongAdder(); //wall time of every batch times its workers of the stage
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+        private void recordQueueDepth(int depth) {
+            if (depth > maxQueueDepth.get()) {
+                maxQueueDepth.accumulateAndGet(depth, Math::max);
+            }
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package creational.factory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Capacity planning on a virtual clock: orders arrive at each store at random (Poisson) times while
+ * it is open and go through prepare, bake, cut and box, each stage taking a fixed time and served by
+ * its staff, the oven by its capacity. Orders wait in FIFO order for a free cook or oven slot
+ * A simulated day takes as long as its events, no thread ever sleeps
+ *
+ * Stores added with their BasePizzaStore run the real lifecycle: each stage calls prepare(), bake(),
+ * cut() or box() of a pizza from the store when it starts, and the boxed pizza is delivered
+ *
+ * Stores share nothing, so the simulation is partitioned by store: every store runs on a scheduler of
+ * its own, whose event heap only holds that store's few pending events and stays in cache. run() goes
+ * through the stores one after the other on the calling thread, runParallel(...) spreads them over
+ * threads, both give the same results
+ */
+final class KitchenSimulation {
+
+    private static final Kitchen.Stage[] STAGES = Kitchen.Stage.values();
+    //a stage completion event carries slot << STAGE_BITS | stage, sized for however many stages there are
+    private static final int STAGE_BITS = 32 - Integer.numberOfLeadingZeros(STAGES.length - 1);
+    private static final int STAGE_MASK = (1 << STAGE_BITS) - 1;
+    private static final int ARRIVAL = -1;
+
+    private final long[] stageNanos = new long[STAGES.length];
+    private final int[] staff = new int[STAGES.length];
+    private final Map<String, Integer> mix = new LinkedHashMap<>();
+    private final List<StoreSpec> stores = new ArrayList<>();
+    private long openNanos = Duration.ofHours(12).toNanos();
+    private long seed = 42;
+
+    KitchenSimulation() {
+        stage(Kitchen.Stage.PREPARE, Duration.ofMinutes(4), 2);
+        stage(Kitchen.Stage.BAKE, Duration.ofMinutes(25), 12); //"Bake for 25 minutes at 350", 12 pizzas in the oven
+        stage(Kitchen.Stage.CUT, Duration.ofMinutes(1), 1);
+        stage(Kitchen.Stage.BOX, Duration.ofMinutes(1), 1);
+    }
+
+    /**
+     * @param staff people working the stage, for BAKE the pizzas the oven holds at once
+     */
+    KitchenSimulation stage(Kitchen.Stage stage, Duration duration, int staff) {
+        if (staff <= 0 || duration.isNegative()) {
+            throw new IllegalArgumentException("staff must be positive and duration not negative: " + staff + ", " + duration);
+        }
+        this.stageNanos[stage.ordinal()] = duration.toNanos();
+        this.staff[stage.ordinal()] = staff;
+        return this;
+    }
+
+    KitchenSimulation ovenCapacity(int pizzas) {
+        return stage(Kitchen.Stage.BAKE, Duration.ofNanos(stageNanos[Kitchen.Stage.BAKE.ordinal()]), pizzas);
+    }
+
+    /**
+     * @param open orders arrive from virtual time 0 until then, orders still in the kitchen are finished
+     */
+    KitchenSimulation openFor(Duration open) {
+        this.openNanos = open.toNanos();
+        return this;
+    }
+
+    /**
+     * Add a pizza type to the order mix, types are picked in proportion to their weight
+     */
+    KitchenSimulation mix(String type, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be positive: " + weight);
+        }
+        mix.merge(type, weight, Integer::sum);
+        return this;
+    }
+
+    /**
+     * Seed of arrival times and type picks, the same seed simulates the same orders
+     */
+    KitchenSimulation seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Add a store which only models time
+     */
+    KitchenSimulation store(String name, double ordersPerHour) {
+        return store(name, ordersPerHour, null);
+    }
+
+    /**
+     * Add a store running the lifecycle of its pizzas. Only ever called from one thread at a time,
+     * so do not add the same store object twice when simulating in parallel
+     */
+    KitchenSimulation store(String name, double ordersPerHour, BasePizzaStore store) {
+        if (!(ordersPerHour > 0)) {
+            throw new IllegalArgumentException("ordersPerHour must be positive: " + ordersPerHour);
+        }
+        stores.add(new StoreSpec(name, ordersPerHour, store));
+        return this;
+    }
+
+    /**
+     * Simulate the stores one after the other, single threaded
+     */
+    SimulationReport run() {
+        long start = System.nanoTime();
+        StoreModel[] models = new StoreModel[stores.size()];
+        long events = 0;
+        for (int i = 0; i < models.length; i++) {
+            events += simulate(models, i);
+        }
+        return report(models, events, System.nanoTime() - start);
+    }
+
+    /**
+     * Simulate the stores on several threads at once
+     */
+    SimulationReport runParallel(int threads) throws InterruptedException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        long start = System.nanoTime();
+        StoreModel[] models = new StoreModel[stores.size()];
+        long events = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> partitions = new ArrayList<>(models.length);
+            for (int i = 0; i < models.length; i++) {
+                int index = i;
+                partitions.add(pool.submit(() -> simulate(models, index)));
+            }
+            for (Future<Long> partition : partitions) {
+                events += partition.get(); //also publishes the model of the partition to this thread
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause(); //e.g. unknown type in the mix
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return report(models, events, System.nanoTime() - start);
+    }
+
+    private long simulate(StoreModel[] models, int index) {
+        EventScheduler scheduler = new EventScheduler();
+        models[index] = new StoreModel(index, scheduler);
+        return scheduler.run();
+    }
+
+    private SimulationReport report(StoreModel[] models, long events, long wallNanos) {
+        List<StoreResult> results = new ArrayList<>(models.length);
+        PlainLatencyHistogram latency = new PlainLatencyHistogram();
+        long orders = 0;
+        for (StoreModel model : models) {
+            results.add(model.result());
+            latency.add(model.latency);
+            orders += model.completed;
+        }
+        return new SimulationReport(results, orders, events, wallNanos, latency.snapshot());
+    }
+
+    private String[] types() {
+        if (mix.isEmpty()) {
+            return new String[]{"cheese"};
+        }
+        int total = 0;
+        for (int weight : mix.values()) {
+            total += weight;
+        }
+        String[] types = new String[total]; //one pick is one array read
+        int i = 0;
+        for (Map.Entry<String, Integer> type : mix.entrySet()) {
+            for (int w = 0; w < type.getValue(); w++) {
+                types[i++] = type.getKey();
+            }
+        }
+        return types;
+    }
+
+    private static final class StoreSpec {
+        private final String name;
+        private final double ordersPerHour;
+        private final BasePizzaStore store; //null when only time is modelled
+
+        private StoreSpec(String name, double ordersPerHour, BasePizzaStore store) {
+            this.name = name;
+            this.ordersPerHour = ordersPerHour;
+            this.store = store;
+        }
+    }
+
+    /**
+     * One store: per stage busy staff and FIFO of waiting orders, orders in flight in slot arrays
+     * Events are arrivals (data ARRIVAL) and stage completions (data slot << STAGE_BITS | stage)
+     */
+    private final class StoreModel implements EventScheduler.Handler {
+        private final StoreSpec spec;
+        private final EventScheduler scheduler;
+        private final int id;
+        private final SplittableRandom random;
+        private final String[] types;
+        private final double meanGapNanos;
+        private final int[] busy = new int[STAGES.length];
+        private final long[] busyNanos = new long[STAGES.length];
+        private final int[] maxWaiting = new int[STAGES.length];
+        private final IntQueue[] waiting = new IntQueue[STAGES.length];
+        private final PlainLatencyHistogram latency = new PlainLatencyHistogram(); //recorded on one thread
+        private long[] arrivedAt = new long[64];
+        private int[] typeOf = new int[64];
+        private Pizza[] pizzas;
+        private final IntQueue freeSlots = new IntQueue();
+        private int slots;
+        private long completed;
+        private long lastBoxedAt;
+
+        private StoreModel(int index, EventScheduler scheduler) {
+            this.spec = stores.get(index);
+            this.scheduler = scheduler;
+            this.id = scheduler.register(this);
+            this.random = new SplittableRandom(seed + index * 0x9E3779B97F4A7C15L);
+            this.types = types();
+            this.meanGapNanos = 3_600e9 / spec.ordersPerHour;
+            this.pizzas = spec.store != null ? new Pizza[64] : null;
+            for (int i = 0; i < waiting.length; i++) {
+                waiting[i] = new IntQueue();
+            }
+            scheduleArrival(0);
+        }
+
+        @Override
+        public void fire(int data, long now) {
+            if (data == ARRIVAL) {
+                arrive(now);
+                return;
+            }
+            int slot = data >>> STAGE_BITS;
+            int stage = data & STAGE_MASK;
+            busy[stage]--;
+            if (stage + 1 < STAGES.length) {
+                enter(stage + 1, slot, now);
+            } else {
+                box(slot, now);
+            }
+            IntQueue queue = waiting[stage];
+            if (!queue.isEmpty()) {
+                start(stage, queue.poll(), now);
+            }
+        }
+
+        private void arrive(long now) {
+            int slot = allocate();
+            arrivedAt[slot] = now;
+            typeOf[slot] = random.nextInt(types.length);
+            enter(0, slot, now);
+            scheduleArrival(now);
+        }
+
+        private void scheduleArrival(long now) {
+            long next = now + (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            if (next < openNanos) {
+                scheduler.schedule(id, next, ARRIVAL);
+            }
+        }
+
+        private void enter(int stage, int slot, long now) {
+            if (busy[stage] < staff[stage]) {
+                start(stage, slot, now);
+            } else {
+                IntQueue queue = waiting[stage];
+                queue.add(slot);
+                maxWaiting[stage] = Math.max(maxWaiting[stage], queue.size());
+            }
+        }
+
+        private void start(int stage, int slot, long now) {
+            busy[stage]++;
+            busyNanos[stage] += stageNanos[stage];
+            if (pizzas != null) {
+                runStage(stage, slot);
+            }
+            scheduler.schedule(id, now + stageNanos[stage], slot << STAGE_BITS | stage);
+        }
+
+        private void runStage(int stage, int slot) {
+            switch (STAGES[stage]) {
+                case PREPARE -> {
+                    Pizza pizza = spec.store.newPizza(types[typeOf[slot]]);
+                    pizzas[slot] = pizza;
+                    pizza.prepare();
+                }
+                case BAKE -> pizzas[slot].bake();
+                case CUT -> pizzas[slot].cut();
+                case BOX -> pizzas[slot].box();
+            }
+        }
+
+        private void box(int slot, long now) {
+            latency.record(now - arrivedAt[slot]);
+            completed++;
+            lastBoxedAt = now;
+            if (pizzas != null) {
+                spec.store.deliver(pizzas[slot]);
+                pizzas[slot] = null;
+            }
+            freeSlots.add(slot);
+        }
+
+        private int allocate() {
+            if (!freeSlots.isEmpty()) {
+                return freeSlots.poll();
+            }
+            if (slots == arrivedAt.length) {
+                arrivedAt = Arrays.copyOf(arrivedAt, slots * 2);
+                typeOf = Arrays.copyOf(typeOf, slots * 2);
+                if (pizzas != null) {
+                    pizzas = Arrays.copyOf(pizzas, slots * 2);
+                }
+            }
+            return slots++;
+        }
+
+        private StoreResult result() {
+            double[] utilization = new double[STAGES.length];
+            long span = Math.max(lastBoxedAt, 1);
+            for (int i = 0; i < utilization.length; i++) {
+                utilization[i] = (double) busyNanos[i] / staff[i] / span;
+            }
+            return new StoreResult(spec.name, completed, lastBoxedAt, latency.snapshot(), utilization, maxWaiting.clone());
+        }
+    }
+
+    /**
+     * Growable FIFO ring of ints, no boxing
+     */
+    private static final class IntQueue {
+        private int[] items = new int[16];
+        private int head;
+        private int size;
+
+        void add(int item) {
+            if (size == items.length) {
+                int[] grown = new int[size * 2];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = items[(head + i) & (items.length - 1)];
+                }
+                items = grown;
+                head = 0;
+            }
+            items[(head + size++) & (items.length - 1)] = item;
+        }
+
+        int poll() {
+            int item = items[head];
+            head = (head + 1) & (items.length - 1);
+            size--;
+            return item;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
+
+/**
+ * Outcome of one store in a KitchenSimulation, times in virtual nanos
+ */
+final class StoreResult {
+
+    private final String name;
+    private final long orders;
+    private final long closedAt;
+    private final LatencySnapshot latency;
+    private final double[] utilization;
+    private final int[] maxWaiting;
+
+    StoreResult(String name, long orders, long closedAt, LatencySnapshot latency, double[] utilization,
+                int[] maxWaiting) {
+        this.name = name;
+        this.orders = orders;
+        this.closedAt = closedAt;
+        this.latency = latency;
+        this.utilization = utilization;
+        this.maxWaiting = maxWaiting;
+    }
+
+    String name() {
+        return name;
+    }
+
+    long orders() {
+        return orders;
+    }
+
+    /**
+     * @return when the last pizza was boxed
+     */
+    long closedAt() {
+        return closedAt;
+    }
+
+    /**
+     * @return from arrival to boxed
+     */
+    LatencySnapshot latency() {
+        return latency;
+    }
+
+    /**
+     * @return share of the stage's staff time spent working until the last pizza was boxed
+     */
+    double utilization(Kitchen.Stage stage) {
+        return utilization[stage.ordinal()];
+    }
+
+    /**
+     * @return most orders waiting for the stage at once
+     */
+    int maxWaiting(Kitchen.Stage stage) {
+        return maxWaiting[stage.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d orders, closed at %.1f h, p99 %.1f min, oven %.0f%% busy, %d waiting for it at most",
+                name, orders, closedAt / 3_600e9, latency.getP99() / 60e9,
+                utilization(Kitchen.Stage.BAKE) * 100, maxWaiting(Kitchen.Stage.BAKE));
+    }
+}
+
+/**
+ * Outcome of a KitchenSimulation: per store results, order latency over all stores from arrival to
+ * boxed in virtual nanos, and how fast the simulation ran in wall clock time
+ */
+final class SimulationReport {
+
+    private final List<StoreResult> stores;
+    private final long orders;
+    private final long events;
+    private final long wallNanos;
+    private final LatencySnapshot latency;
+
+    SimulationReport(List<StoreResult> stores, long orders, long events, long wallNanos, LatencySnapshot latency) {
+        this.stores = List.copyOf(stores);
+        this.orders = orders;
+        this.events = events;
+        this.wallNanos = wallNanos;
+        this.latency = latency;
+    }
+
+    List<StoreResult> stores() {
+        return stores;
+    }
+
+    long orders() {
+        return orders;
+    }
+
+    long events() {
+        return events;
+    }
+
+    long wallNanos() {
+        return wallNanos;
+    }
+
+    LatencySnapshot latency() {
+        return latency;
+    }
+
+    /**
+     * @return simulated orders per wall clock second
+     */
+    double ordersPerSecond() {
+        return orders * 1e9 / Math.max(wallNanos, 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d stores, %d orders, %d events in %.1f ms (%.2fM orders/s), "
+                        + "order to box p50 %.1f min, p99 %.1f min, max %.1f min",
+                stores.size(), orders, events, wallNanos / 1e6, ordersPerSecond() / 1e6,
+                latency.getP50() / 60e9, latency.getP99() / 60e9, latency.getMax() / 60e9);
+    }
+}
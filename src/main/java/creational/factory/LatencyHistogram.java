@@ -0,0 +1,76 @@
+package creational.factory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram with preallocated log-linear buckets (8 per power of two, so a value
+ * is reported at most 12.5% above its real value). Recording is one atomic increment and never allocates,
+ * threads are spread over a few stripes so that concurrent recorders rarely hit the same counter
+ * PlainLatencyHistogram has the same buckets for a single recording thread
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = 64 * SUB_BUCKETS;
+    private static final int STRIPES = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors()), 4);
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+
+    void record(long nanos) {
+        int stripe = (int) (Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L >>> 32) & (STRIPES - 1);
+        counts.getAndIncrement(stripe * BUCKETS + bucketOf(Math.max(nanos, 0)));
+    }
+
+    /**
+     * @return counts of all stripes summed up, a consistent enough view while recording goes on
+     */
+    LatencySnapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < counts.length(); i++) {
+            buckets[i % BUCKETS] += counts.get(i);
+        }
+        return snapshotOf(buckets);
+    }
+
+    static LatencySnapshot snapshotOf(long[] buckets) {
+        long total = 0;
+        for (long count : buckets) {
+            total += count;
+        }
+        return new LatencySnapshot(total, valueAt(buckets, total, 0.50), valueAt(buckets, total, 0.90),
+                valueAt(buckets, total, 0.99), valueAt(buckets, total, 0.999), valueAt(buckets, total, 1.0));
+    }
+
+    private static long valueAt(long[] buckets, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return highestValueOf(i);
+            }
+        }
+        return Long.MAX_VALUE; //not reached, counts only grow
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,56 @@
+package creational.factory;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Percentiles of a LatencyHistogram at one point in time, in nanoseconds
+ * Public as it is exposed through JMX (PizzaMetricsMXBean) as composite data
+ */
+public final class LatencySnapshot {
+
+    private final long count;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    @ConstructorProperties({"count", "p50", "p90", "p99", "p999", "max"})
+    public LatencySnapshot(long count, long p50, long p90, long p99, long p999, long max) {
+        this.count = count;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d p50=%dns p90=%dns p99=%dns p99.9=%dns max=%dns", count, p50, p90, p99, p999, max);
+    }
+}
@@ -0,0 +1,266 @@
+package creational.factory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Open-loop load generator: orders are sent on a fixed schedule, whether or not the store keeps up,
+ * and handed to a pool of cooks. Latency is measured from the intended send time, so an order waiting
+ * behind slow ones is charged for the wait (no coordinated omission), service time from when a cook
+ * picked it up. Works for any store through its orderPizza, e.g. {@code new LoadGenerator(store::orderPizza)}
+ */
+final class LoadGenerator {
+
+    private static final long SPIN_NANOS = 50_000; //park until this close to a send time, then spin
+
+    private final Function<String, Pizza> orders;
+    private final Map<String, Integer> mix = new LinkedHashMap<>();
+    private int cooks = Runtime.getRuntime().availableProcessors();
+    private long seed = 42;
+    private AdmissionControl admission; //null admits every order
+
+    LoadGenerator(Function<String, Pizza> orders) {
+        this.orders = Objects.requireNonNull(orders, "orders");
+    }
+
+    /**
+     * Add a pizza type to the order mix, types are picked in proportion to their weight
+     */
+    LoadGenerator mix(String type, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be positive: " + weight);
+        }
+        mix.merge(type, weight, Integer::sum);
+        return this;
+    }
+
+    /**
+     * @param cooks threads serving orders, the store's capacity is about cooks / service time
+     */
+    LoadGenerator cooks(int cooks) {
+        if (cooks <= 0) {
+            throw new IllegalArgumentException("cooks must be positive: " + cooks);
+        }
+        this.cooks = cooks;
+        return this;
+    }
+
+    /**
+     * Seed of the type picks, the same seed sends the same sequence of types
+     */
+    LoadGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Shed load at send time: orders the admission control rejects are counted and never queue for a cook,
+     * latency is then reported for admitted orders only
+     */
+    LoadGenerator admission(AdmissionControl admission) {
+        this.admission = Objects.requireNonNull(admission, "admission");
+        return this;
+    }
+
+    /**
+     * Send orders at the target rate for the duration, then wait for every order to complete
+     */
+    LoadReport run(double ordersPerSecond, Duration duration) throws InterruptedException {
+        if (!(ordersPerSecond > 0)) {
+            throw new IllegalArgumentException("rate must be positive: " + ordersPerSecond);
+        }
+        String[] types = types();
+        SplittableRandom random = new SplittableRandom(seed);
+        LatencyHistogram latency = new LatencyHistogram();
+        LatencyHistogram service = new LatencyHistogram();
+        LongAdder failed = new LongAdder();
+        long rejected = 0;
+        AdmissionControl admission = this.admission;
+        LongAccumulator lastDone = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        double interval = 1e9 / ordersPerSecond;
+        ExecutorService kitchen = Executors.newFixedThreadPool(cooks);
+        long sent = 0;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try {
+            for (long intended = start; intended < end; intended = start + (long) (++sent * interval)) {
+                waitUntil(intended);
+                String type = types[random.nextInt(types.length)];
+                long sendTime = intended;
+                long admittedAt;
+                if (admission == null) {
+                    admittedAt = 0;
+                } else {
+                    try {
+                        admittedAt = admission.admit();
+                    } catch (OrderRejectedException e) {
+                        rejected++;
+                        continue;
+                    }
+                }
+                kitchen.execute(() -> {
+                    long begin = System.nanoTime();
+                    boolean completed = false;
+                    try {
+                        orders.apply(type);
+                        completed = true;
+                    } catch (Throwable e) { //Errors too, counted like any failed order
+                        failed.increment();
+                    } finally {
+                        long done = System.nanoTime();
+                        if (admission != null) {
+                            admission.release(admittedAt, completed);
+                        }
+                        if (completed) { //a failure, e.g. an unknown type, is often fast and would flatter latency
+                            latency.record(done - sendTime); //includes the time queued behind earlier orders
+                            service.record(done - begin);
+                        }
+                        lastDone.accumulate(done);
+                    }
+                });
+            }
+        } finally {
+            kitchen.shutdown();
+        }
+        kitchen.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        double seconds = Math.max(lastDone.get() - start, 1) / 1e9;
+        return new LoadReport(ordersPerSecond, sent, failed.sum(), rejected,
+                (sent - rejected - failed.sum()) / seconds, latency.snapshot(), service.snapshot());
+    }
+
+    /**
+     * Run one step per target rate, the report of each step is one point of the saturation curve:
+     * achieved rate and latency flatten, then latency grows without bound past the store's capacity
+     */
+    List<LoadReport> saturationCurve(double[] ordersPerSecond, Duration stepDuration) throws InterruptedException {
+        List<LoadReport> curve = new ArrayList<>(ordersPerSecond.length);
+        for (double rate : ordersPerSecond) {
+            curve.add(run(rate, stepDuration));
+        }
+        return curve;
+    }
+
+    private String[] types() {
+        if (mix.isEmpty()) {
+            throw new IllegalStateException("no pizza types in the mix");
+        }
+        int total = 0;
+        for (int weight : mix.values()) {
+            total += weight;
+        }
+        String[] types = new String[total]; //one pick is one array read
+        int i = 0;
+        for (Map.Entry<String, Integer> type : mix.entrySet()) {
+            for (int w = 0; w < type.getValue(); w++) {
+                types[i++] = type.getKey();
+            }
+        }
+        return types;
+    }
+
+    private static void waitUntil(long deadline) {
+        long wait;
+        while ((wait = deadline - System.nanoTime()) > 0) {
+            if (wait > SPIN_NANOS) {
+                LockSupport.parkNanos(wait - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
+
+/**
+ * Outcome of one LoadGenerator run, latencies in nanos
+ */
+final class LoadReport {
+
+    private final double targetRate;
+    private final long sent;
+    private final long failed;
+    private final long rejected;
+    private final double achievedRate;
+    private final LatencySnapshot latency;
+    private final LatencySnapshot serviceTime;
+
+    LoadReport(double targetRate, long sent, long failed, long rejected, double achievedRate,
+               LatencySnapshot latency, LatencySnapshot serviceTime) {
+        this.targetRate = targetRate;
+        this.sent = sent;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.achievedRate = achievedRate;
+        this.latency = latency;
+        this.serviceTime = serviceTime;
+    }
+
+    double targetRate() {
+        return targetRate;
+    }
+
+    long sent() {
+        return sent;
+    }
+
+    /**
+     * @return orders admitted and failed by the store, e.g. unknown type, not counted in latency
+     */
+    long failed() {
+        return failed;
+    }
+
+    /**
+     * @return orders shed by admission control, never cooked nor counted in latency
+     */
+    long rejected() {
+        return rejected;
+    }
+
+    /**
+     * @return orders completed per second, below the target once the store is saturated
+     */
+    double achievedRate() {
+        return achievedRate;
+    }
+
+    /**
+     * @return from intended send time to completion, what a customer would see, completed orders only
+     */
+    LatencySnapshot latency() {
+        return latency;
+    }
+
+    /**
+     * @return from a cook picking the order up to completion, hides queueing
+     */
+    LatencySnapshot serviceTime() {
+        return serviceTime;
+    }
+
+    static String header() {
+        return String.format("%10s %10s %8s %8s %10s %10s %10s %10s %10s %12s",
+                "target/s", "achieved/s", "failed", "rejected", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us", "svc p99 us");
+    }
+
+    /**
+     * @return one row under header(), a saturation curve is one row per run
+     */
+    @Override
+    public String toString() {
+        return String.format("%10.0f %10.0f %8d %8d %10.1f %10.1f %10.1f %10.1f %10.1f %12.1f",
+                targetRate, achievedRate, failed, rejected, latency.getP50() / 1e3, latency.getP90() / 1e3,
+                latency.getP99() / 1e3, latency.getP999() / 1e3, latency.getMax() / 1e3, serviceTime.getP99() / 1e3);
+    }
+}
@@ -0,0 +1,214 @@
+package creational.factory;
+
+import creational.Multiton;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+
+/**
+ * Regional menus of every store, region x pizza type -> pizza class and ingredient family, read
+ * from a binary catalog compiled offline by MenuCatalogCompiler
+ *
+ * The file is memory mapped and only its header is read on open. A region is decoded into a
+ * PizzaMenu on its first lookup, so startup and heap grow with the regions a process serves,
+ * not with the regions in the catalog. Finding a region is one probe in an open addressing table
+ * of the file, finding a type one probe in the decoded PizzaMenu
+ *
+ * Layout, big endian, offsets from the start of the file:
+ * header   magic, version, regions, region slots (power of two), entries offset, strings offset
+ * regions  slots of (hash, name, first entry, entry count), hash 0 marks a free slot
+ * entries  (type, class, ingredient family or -1), the entries of a region are consecutive
+ * strings  unsigned short length and ASCII bytes, every distinct string once
+ */
+final class MenuCatalog {
+
+    static final int MAGIC = 0x505A4D43; //PZMC
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int REGION_BYTES = 16;
+    static final int ENTRY_BYTES = 12;
+    static final int NO_FAMILY = -1;
+
+    private final ByteBuffer data; //only absolute reads, so it is safe to share between threads
+    private final int regions;
+    private final int slotMask;
+    private final int entriesOffset;
+    private final int entries;
+    private final PizzaIngredientFactories ingredients;
+    private final Multiton<String, PizzaMenu> menus = Multiton.of(this::decode);
+
+    MenuCatalog(ByteBuffer data, PizzaIngredientFactories ingredients) {
+        this.data = data;
+        this.ingredients = ingredients;
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a menu catalog");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported menu catalog version: " + data.getInt(4));
+        }
+        int regions = data.getInt(8);
+        int slots = data.getInt(12);
+        int entriesOffset = data.getInt(16);
+        int stringsOffset = data.getInt(20);
+        //every later read is within these bounds, a corrupt file fails here and not on some lookup
+        if (slots <= 0 || Integer.bitCount(slots) != 1 || regions < 0 || regions > slots
+                || entriesOffset < HEADER_BYTES + (long) slots * REGION_BYTES
+                || stringsOffset < entriesOffset || stringsOffset > data.capacity()) {
+            throw new IllegalArgumentException("Corrupt menu catalog header");
+        }
+        this.regions = regions;
+        this.slotMask = slots - 1;
+        this.entriesOffset = entriesOffset;
+        this.entries = (stringsOffset - entriesOffset) / ENTRY_BYTES;
+    }
+
+    /**
+     * Map the catalog file, the mapping stays valid after the channel is closed
+     *
+     * @throws IllegalArgumentException if the file is not a menu catalog of this version
+     */
+    static MenuCatalog open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MenuCatalog(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+                    PizzaIngredientFactories.shared());
+        }
+    }
+
+    /**
+     * @return regions in the catalog, decoded or not
+     */
+    int regions() {
+        return regions;
+    }
+
+    /**
+     * @return regions decoded so far
+     */
+    int decodedRegions() {
+        return menus.size();
+    }
+
+    boolean offers(String region) {
+        return slotOf(region) >= 0;
+    }
+
+    /**
+     * @return menu of the region, decoded on the first call for the region
+     * @throws IllegalArgumentException if the region is not in the catalog
+     */
+    PizzaMenu menu(String region) {
+        if (!menus.contains(region) && slotOf(region) < 0) { //unknown regions must not pile up in menus
+            throw new IllegalArgumentException("Unknown region: " + region);
+        }
+        return menus.getInstance(region);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the region or the type is not in the catalog
+     */
+    Pizza create(String region, String type) {
+        return menu(region).create(type);
+    }
+
+    private PizzaMenu decode(String region) {
+        int slot = slotOf(region);
+        int first = data.getInt(slot + 8);
+        int count = data.getInt(slot + 12);
+        if (first < 0 || count < 0 || (long) first + count > entries) {
+            throw new IllegalStateException("Corrupt menu catalog entries of region " + region);
+        }
+        PizzaMenu.Builder builder = PizzaMenu.builder();
+        for (int i = 0; i < count; i++) {
+            int entry = entriesOffset + (first + i) * ENTRY_BYTES;
+            String type = string(data.getInt(entry));
+            int family = data.getInt(entry + 8);
+            builder.add(type, constructor(region, type, string(data.getInt(entry + 4)),
+                    family == NO_FAMILY ? null : string(family)));
+        }
+        return builder.build();
+    }
+
+    private Supplier<? extends Pizza> constructor(String region, String type, String className, String family) {
+        try {
+            //loaded but not initialised, preInitialize or the first order does that
+            Class<? extends Pizza> pizzaClass = Class.forName(className, false, MenuCatalog.class.getClassLoader())
+                    .asSubclass(Pizza.class);
+            if (family == null) {
+                Constructor<? extends Pizza> constructor = pizzaClass.getDeclaredConstructor();
+                return () -> newInstance(constructor);
+            }
+            Constructor<? extends Pizza> constructor = pizzaClass.getDeclaredConstructor(PizzaIngredientFactory.class);
+            PizzaIngredientFactory factory = ingredients.forRegion(family);
+            return () -> newInstance(constructor, factory);
+        } catch (ClassNotFoundException | NoSuchMethodException | ClassCastException e) {
+            throw new IllegalStateException("Bad catalog entry " + region + "/" + type + ": " + className, e);
+        }
+    }
+
+    private static Pizza newInstance(Constructor<? extends Pizza> constructor, Object... args) {
+        try {
+            return constructor.newInstance(args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return file offset of the region's slot, -1 if the region is not in the catalog
+     */
+    private int slotOf(String region) {
+        int hash = hash(region);
+        for (int i = hash & slotMask; ; i = (i + 1) & slotMask) {
+            int slot = HEADER_BYTES + i * REGION_BYTES;
+            int candidate = data.getInt(slot);
+            if (candidate == 0) {
+                return -1;
+            }
+            if (candidate == hash && equals(data.getInt(slot + 4), region)) {
+                return slot;
+            }
+        }
+    }
+
+    //compares without decoding the string
+    private boolean equals(int offset, String value) {
+        int length = data.getShort(offset) & 0xFFFF;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data.get(offset + 2 + i) != value.charAt(i)) { //non ASCII chars never match
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String string(int offset) {
+        byte[] bytes = new byte[data.getShort(offset) & 0xFFFF];
+        data.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * FNV-1a of the chars, never 0 which marks a free slot. The compiler places regions with it
+     */
+    static int hash(String value) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,137 @@
+package creational.factory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the text menu catalog into the binary file MenuCatalog maps, offline, as a build step
+ *
+ * One line per region and pizza type: region type pizza-class ingredient-family, separated by
+ * whitespace. Family - for pizzas created without an ingredient factory, # starts a comment line
+ *
+ * usage: java creational.factory.MenuCatalogCompiler menus.txt menus.catalog
+ */
+public class MenuCatalogCompiler {
+
+    private static final int MAX_STRING = 0xFFFF;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: MenuCatalogCompiler <source> <catalog>");
+            System.exit(2);
+        }
+        int regions = compile(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println(regions + " regions compiled into " + args[1]);
+    }
+
+    /**
+     * @return regions in the catalog
+     * @throws IllegalArgumentException naming the line of a malformed or duplicate entry
+     */
+    static int compile(Path source, Path catalog) throws IOException {
+        Map<String, List<String[]>> regions = new LinkedHashMap<>();
+        Map<String, Integer> lines = new HashMap<>(); //region/type -> line, to report duplicates
+        int number = 0;
+        for (String line : Files.readAllLines(source, StandardCharsets.UTF_8)) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            if (fields.length != 4) {
+                throw new IllegalArgumentException("line " + number + ": expected region type class family, got " + line);
+            }
+            for (String field : fields) {
+                if (field.length() > MAX_STRING || !isAscii(field)) {
+                    throw new IllegalArgumentException("line " + number + ": not a short ASCII string: " + field);
+                }
+            }
+            Integer previous = lines.putIfAbsent(fields[0] + "/" + fields[1], number);
+            if (previous != null) {
+                throw new IllegalArgumentException("line " + number + ": " + fields[0] + "/" + fields[1]
+                        + " already defined on line " + previous);
+            }
+            regions.computeIfAbsent(fields[0], region -> new ArrayList<>()).add(fields);
+        }
+
+        Path temp = Files.createTempFile(catalog.toAbsolutePath().getParent(), "catalog", ".tmp");
+        Files.write(temp, encode(regions));
+        //readers mapping the old file keep it, a half written file is never visible
+        Files.move(temp, catalog, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return regions.size();
+    }
+
+    static byte[] encode(Map<String, List<String[]>> regions) {
+        int slots = Integer.highestOneBit(Math.max(2, regions.size() * 2 - 1)) << 1; //at most half full
+        int entries = 0;
+        Map<String, Integer> strings = new LinkedHashMap<>(); //string -> offset in the pool
+        int poolSize = 0;
+        for (Map.Entry<String, List<String[]>> region : regions.entrySet()) {
+            poolSize = intern(strings, region.getKey(), poolSize);
+            for (String[] fields : region.getValue()) {
+                for (int i = 1; i < 4; i++) {
+                    if (i != 3 || !fields[i].equals("-")) {
+                        poolSize = intern(strings, fields[i], poolSize);
+                    }
+                }
+                entries++;
+            }
+        }
+        int entriesOffset = MenuCatalog.HEADER_BYTES + slots * MenuCatalog.REGION_BYTES;
+        int poolOffset = entriesOffset + entries * MenuCatalog.ENTRY_BYTES;
+        ByteBuffer out = ByteBuffer.allocate(poolOffset + poolSize);
+
+        out.putInt(MenuCatalog.MAGIC).putInt(MenuCatalog.VERSION).putInt(regions.size())
+                .putInt(slots).putInt(entriesOffset).putInt(poolOffset);
+        int entry = 0;
+        for (Map.Entry<String, List<String[]>> region : regions.entrySet()) {
+            int hash = MenuCatalog.hash(region.getKey());
+            int i = hash & (slots - 1);
+            while (out.getInt(MenuCatalog.HEADER_BYTES + i * MenuCatalog.REGION_BYTES) != 0) {
+                i = (i + 1) & (slots - 1);
+            }
+            out.position(MenuCatalog.HEADER_BYTES + i * MenuCatalog.REGION_BYTES);
+            out.putInt(hash).putInt(poolOffset + strings.get(region.getKey()))
+                    .putInt(entry).putInt(region.getValue().size());
+
+            out.position(entriesOffset + entry * MenuCatalog.ENTRY_BYTES);
+            for (String[] fields : region.getValue()) {
+                out.putInt(poolOffset + strings.get(fields[1])).putInt(poolOffset + strings.get(fields[2]))
+                        .putInt(fields[3].equals("-") ? MenuCatalog.NO_FAMILY : poolOffset + strings.get(fields[3]));
+                entry++;
+            }
+        }
+        out.position(poolOffset);
+        for (String string : strings.keySet()) {
+            out.putShort((short) string.length()).put(string.getBytes(StandardCharsets.US_ASCII));
+        }
+        return out.array();
+    }
+
+    private static boolean isAscii(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int intern(Map<String, Integer> strings, String string, int poolSize) {
+        if (strings.putIfAbsent(string, poolSize) != null) {
+            return poolSize;
+        }
+        return poolSize + 2 + string.length();
+    }
+}
@@ -0,0 +1,249 @@
+package creational.factory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Columnar order book: one entry per order in parallel primitive arrays instead of an object per order
+ * Pizza types and store names are interned to short codes, state and timestamps are primitives, so an
+ * order costs a fixed {@link #BYTES_PER_ORDER} bytes and scans such as "orders in BAKE by type" read a
+ * couple of arrays front to back without touching a Pizza or a String
+ *
+ * Columns grow in chunks of 64k orders, nothing is copied on growth. Not thread safe, keep a book per
+ * thread, e.g. per StoreRouter shard, or guard it
+ */
+final class OrderBook {
+
+    enum Status {
+        ORDERED, PREPARE, BAKE, CUT, BOX, DELIVERED
+    }
+
+    static final int BYTES_PER_ORDER = Short.BYTES * 2 + Byte.BYTES + Long.BYTES * 2; //type, store, status, 2 times
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CODES = 1 << 15; //codes are shorts
+    private static final Status[] STATUSES = Status.values();
+
+    private final Dictionary types = new Dictionary("pizza types");
+    private final Dictionary stores = new Dictionary("stores");
+    private short[][] typeColumn = new short[0][];
+    private short[][] storeColumn = new short[0][];
+    private byte[][] statusColumn = new byte[0][];
+    private long[][] orderedAtColumn = new long[0][];
+    private long[][] updatedAtColumn = new long[0][];
+    private int size;
+
+    /**
+     * Give every type on the menu its code up front, so codes follow the menu rather than the first orders
+     */
+    OrderBook intern(PizzaMenu menu) {
+        for (int slot = 0; slot < menu.slots(); slot++) {
+            String type = menu.typeAt(slot);
+            if (type != null) {
+                types.codeOf(type);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param nanos time of the order, e.g. System.nanoTime()
+     * @return id of the order in this book
+     */
+    int add(String store, String type, long nanos) {
+        Objects.requireNonNull(store, "store");
+        Objects.requireNonNull(type, "type");
+        int order = size;
+        int chunk = order >>> CHUNK_BITS;
+        if (chunk == typeColumn.length) {
+            grow();
+        }
+        int i = order & CHUNK_MASK;
+        typeColumn[chunk][i] = types.codeOf(type);
+        storeColumn[chunk][i] = stores.codeOf(store);
+        statusColumn[chunk][i] = (byte) Status.ORDERED.ordinal();
+        orderedAtColumn[chunk][i] = nanos;
+        updatedAtColumn[chunk][i] = nanos;
+        size = order + 1;
+        return order;
+    }
+
+    void update(int order, Status status, long nanos) {
+        if (order < 0 || order >= size) {
+            throw new IndexOutOfBoundsException("no order " + order + " in a book of " + size);
+        }
+        statusColumn[order >>> CHUNK_BITS][order & CHUNK_MASK] = (byte) status.ordinal();
+        updatedAtColumn[order >>> CHUNK_BITS][order & CHUNK_MASK] = nanos;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Status status(int order) {
+        return STATUSES[statusColumn[order >>> CHUNK_BITS][order & CHUNK_MASK]];
+    }
+
+    String type(int order) {
+        return types.valueOf(typeColumn[order >>> CHUNK_BITS][order & CHUNK_MASK]);
+    }
+
+    String store(int order) {
+        return stores.valueOf(storeColumn[order >>> CHUNK_BITS][order & CHUNK_MASK]);
+    }
+
+    /**
+     * @return code of the type, -1 if it was never ordered nor interned
+     */
+    int typeCode(String type) {
+        return types.find(type);
+    }
+
+    String typeOf(int code) {
+        return types.valueOf(code);
+    }
+
+    /**
+     * Bulk scan, no allocation but the result
+     *
+     * @return orders in the status per type code, index with typeCode(type)
+     */
+    long[] countByTypeCode(Status status) {
+        long[] counts = new long[types.size()];
+        byte wanted = (byte) status.ordinal();
+        for (int chunk = 0; chunk < chunks(); chunk++) {
+            byte[] statuses = statusColumn[chunk];
+            short[] typeCodes = typeColumn[chunk];
+            int length = lengthOf(chunk);
+            for (int i = 0; i < length; i++) {
+                if (statuses[i] == wanted) {
+                    counts[typeCodes[i]]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return orders in the status per type, types without such orders left out
+     */
+    Map<String, Long> countByType(Status status) {
+        long[] counts = countByTypeCode(status);
+        Map<String, Long> byType = new LinkedHashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                byType.put(types.valueOf(code), counts[code]);
+            }
+        }
+        return byType;
+    }
+
+    /**
+     * @return orders per status, index with Status.ordinal()
+     */
+    long[] countByStatus() {
+        long[] counts = new long[STATUSES.length];
+        for (int chunk = 0; chunk < chunks(); chunk++) {
+            byte[] statuses = statusColumn[chunk];
+            int length = lengthOf(chunk);
+            for (int i = 0; i < length; i++) {
+                counts[statuses[i]]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return longest time since the last update among orders in the status, 0 if there are none
+     */
+    long oldestNanos(Status status, long now) {
+        byte wanted = (byte) status.ordinal();
+        long oldest = Long.MAX_VALUE;
+        for (int chunk = 0; chunk < chunks(); chunk++) {
+            byte[] statuses = statusColumn[chunk];
+            long[] updatedAt = updatedAtColumn[chunk];
+            int length = lengthOf(chunk);
+            for (int i = 0; i < length; i++) {
+                if (statuses[i] == wanted && updatedAt[i] < oldest) {
+                    oldest = updatedAt[i];
+                }
+            }
+        }
+        return oldest == Long.MAX_VALUE ? 0 : now - oldest;
+    }
+
+    /**
+     * @return heap held by the columns, allocated chunks included
+     */
+    long footprintBytes() {
+        return (long) typeColumn.length * CHUNK_SIZE * BYTES_PER_ORDER;
+    }
+
+    private int chunks() {
+        return (size + CHUNK_MASK) >>> CHUNK_BITS;
+    }
+
+    private int lengthOf(int chunk) {
+        return Math.min(CHUNK_SIZE, size - (chunk << CHUNK_BITS));
+    }
+
+    private void grow() {
+        int chunks = typeColumn.length + 1; //only the outer arrays are copied, a few references
+        typeColumn = Arrays.copyOf(typeColumn, chunks);
+        storeColumn = Arrays.copyOf(storeColumn, chunks);
+        statusColumn = Arrays.copyOf(statusColumn, chunks);
+        orderedAtColumn = Arrays.copyOf(orderedAtColumn, chunks);
+        updatedAtColumn = Arrays.copyOf(updatedAtColumn, chunks);
+        typeColumn[chunks - 1] = new short[CHUNK_SIZE];
+        storeColumn[chunks - 1] = new short[CHUNK_SIZE];
+        statusColumn[chunks - 1] = new byte[CHUNK_SIZE];
+        orderedAtColumn[chunks - 1] = new long[CHUNK_SIZE];
+        updatedAtColumn[chunks - 1] = new long[CHUNK_SIZE];
+    }
+
+    /**
+     * Interns strings to dense codes 0, 1, 2, ... in order of first use
+     */
+    private static final class Dictionary {
+        private final String name;
+        private final Map<String, Short> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        private Dictionary(String name) {
+            this.name = name;
+        }
+
+        short codeOf(String value) {
+            Short code = codes.get(value); //known values do not allocate, a Short is boxed once per value
+            if (code != null) {
+                return code;
+            }
+            if (values.size() == MAX_CODES) {
+                throw new IllegalStateException("more than " + MAX_CODES + " " + name);
+            }
+            short next = (short) values.size();
+            codes.put(value, next);
+            values.add(value);
+            return next;
+        }
+
+        int find(String value) {
+            Short code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        String valueOf(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package creational.factory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors shared by the asynchronous order API of the pizza stores
+ */
+final class OrderExecutors {
+
+    //one virtual thread per order: an order blocked in bake() parks its virtual thread, not a platform thread
+    private static final Executor VIRTUAL_THREAD_PER_ORDER = Executors.newVirtualThreadPerTaskExecutor();
+
+    private OrderExecutors() {
+    }
+
+    static Executor virtualThreadPerOrder() {
+        return VIRTUAL_THREAD_PER_ORDER;
+    }
+}
@@ -0,0 +1,219 @@
+package creational.factory;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Order intake in front of a store: one producer thread hands orders to consumer threads through a
+ * preallocated power of two ring, no lock and no node allocated per order
+ * The producer publishes sequences in order; consumers claim a batch of published sequences with one
+ * CAS, copy the types out, free the slots and then cook the batch through orderPizza
+ * A slot is reused once the consumer of the order one lap earlier freed it
+ */
+final class OrderIntake implements AutoCloseable {
+
+    /**
+     * What a thread does while the ring is empty (consumers) or full (producer)
+     */
+    enum WaitStrategy {
+        BUSY_SPIN { //lowest latency, burns a core per waiting thread
+
+            @Override
+            void idle() {
+                Thread.onSpinWait();
+            }
+        },
+        YIELD { //gives the core to other runnable threads, still spins when there are none
+
+            @Override
+            void idle() {
+                Thread.yield();
+            }
+        },
+        PARK { //cheap on CPU, wakes up within the OS timer slack, tens of microseconds
+
+            @Override
+            void idle() {
+                LockSupport.parkNanos(1_000);
+            }
+        };
+
+        abstract void idle();
+    }
+
+    private final String[] types;
+    private final AtomicLongArray freeFrom; //per slot, first sequence allowed to use it
+    private final int mask;
+    private final AtomicLong published = new AtomicLong(); //sequences below are readable
+    private final AtomicLong claimed = new AtomicLong(); //sequences below are taken by a consumer
+    private final Function<String, Pizza> orders;
+    private final Consumer<Pizza> delivery;
+    private final WaitStrategy waitStrategy;
+    private final int maxBatch;
+    private final LongAdder cooked = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Thread[] consumers;
+    private long next; //producer only, sequence of the next order
+    private volatile boolean running = true;
+
+    /**
+     * @param orders    order path of the store, e.g. {@code store::orderPizza}
+     * @param delivery  gets every cooked pizza on the consumer thread, e.g. {@code store::deliver}
+     * @param capacity  orders waiting at most, rounded up to a power of two
+     * @param consumers threads cooking orders
+     * @param maxBatch  orders a consumer claims at once
+     */
+    OrderIntake(Function<String, Pizza> orders, Consumer<Pizza> delivery, int capacity, int consumers,
+                WaitStrategy waitStrategy, int maxBatch) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        if (consumers <= 0 || maxBatch <= 0) {
+            throw new IllegalArgumentException("consumers and maxBatch must be positive: " + consumers + ", " + maxBatch);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.types = new String[size];
+        this.freeFrom = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            freeFrom.set(i, i);
+        }
+        this.mask = size - 1;
+        this.orders = Objects.requireNonNull(orders, "orders");
+        this.delivery = Objects.requireNonNull(delivery, "delivery");
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "waitStrategy");
+        this.maxBatch = Math.min(maxBatch, size);
+        this.consumers = new Thread[consumers];
+        for (int i = 0; i < consumers; i++) {
+            Thread consumer = new Thread(this::consume, "order-intake-" + i);
+            consumer.setDaemon(true);
+            this.consumers[i] = consumer;
+        }
+        for (Thread consumer : this.consumers) {
+            consumer.start();
+        }
+    }
+
+    /**
+     * Hand the order to a consumer, waiting with the wait strategy while the ring is full
+     * Only ever call from one producer thread
+     */
+    void submit(String type) {
+        long sequence = next;
+        int slot = (int) sequence & mask;
+        while (freeFrom.get(slot) != sequence) {
+            if (!running) {
+                throw new IllegalStateException("intake is closed");
+            }
+            waitStrategy.idle(); //full, a consumer is still on the order one lap back
+        }
+        publish(sequence, slot, type);
+    }
+
+    /**
+     * @return false, without waiting, when the ring is full. Only ever call from one producer thread
+     */
+    boolean offer(String type) {
+        long sequence = next;
+        int slot = (int) sequence & mask;
+        if (freeFrom.get(slot) != sequence) {
+            return false;
+        }
+        publish(sequence, slot, type);
+        return true;
+    }
+
+    long cooked() {
+        return cooked.sum();
+    }
+
+    /**
+     * @return orders whose orderPizza threw, e.g. unknown type
+     */
+    long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * Stop the consumers once every order submitted so far is cooked
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Thread consumer : consumers) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void publish(long sequence, int slot, String type) {
+        if (!running) {
+            throw new IllegalStateException("intake is closed");
+        }
+        types[slot] = Objects.requireNonNull(type, "type");
+        next = sequence + 1;
+        //volatile, not lazySet: ordered before the running read below, so either this thread sees the close
+        //or every consumer sees the order before it exits
+        published.set(sequence + 1);
+        //closed meanwhile: the consumers may be gone already, take the order back unless one claimed it
+        if (!running && claimed.compareAndSet(sequence, sequence + 1)) {
+            types[slot] = null;
+            freeFrom.lazySet(slot, sequence + types.length);
+            throw new IllegalStateException("intake is closed");
+        }
+    }
+
+    private void consume() {
+        String[] batch = new String[maxBatch];
+        while (true) {
+            int count = claimBatch(batch);
+            if (count > 0) {
+                cook(batch, count);
+            } else if (running || claimed.get() < published.get()) {
+                waitStrategy.idle();
+            } else {
+                return;
+            }
+        }
+    }
+
+    private int claimBatch(String[] batch) {
+        long first;
+        int count;
+        do {
+            first = claimed.get();
+            count = (int) Math.min(published.get() - first, batch.length);
+            if (count <= 0) {
+                return 0;
+            }
+        } while (!claimed.compareAndSet(first, first + count));
+        for (int i = 0; i < count; i++) {
+            long sequence = first + i;
+            int slot = (int) sequence & mask;
+            batch[i] = types[slot];
+            types[slot] = null;
+            freeFrom.lazySet(slot, sequence + types.length); //release, the producer may reuse the slot
+        }
+        return count;
+    }
+
+    private void cook(String[] batch, int count) {
+        for (int i = 0; i < count; i++) {
+            try {
+                delivery.accept(orders.apply(batch[i]));
+                cooked.increment();
+            } catch (Throwable e) { //Errors too, a dead consumer would lose its batch and stall submit on a full ring
+                failed.increment();
+            }
+            batch[i] = null;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package creational.factory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of orders in memory mapped segment files, orders-000000.journal, orders-000001.journal, ...
+ * Every order is one fixed-width 32 byte record:
+ * <pre>
+ *  0  long    epoch millis of the order
+ *  8  byte[23] pizza type, UTF-8, zero padded
+ * 31  byte    length of the type, written last, 0 marks the end of the journal
+ * </pre>
+ * Segments are a whole number of pages, so a record never spans two pages, and the length is stored
+ * after the payload with a store-store fence in between, so a crash leaves either the whole record or
+ * an end marker. Appending is a few stores into the mapping, with GROUP_COMMIT durability concurrent
+ * orders share one force of the mapping instead of one each
+ */
+final class OrderJournal implements AutoCloseable {
+
+    static final int RECORD_BYTES = 32;
+    static final int MAX_TYPE_BYTES = 23;
+    static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+    private static final int PAGE_BYTES = 4096;
+    private static final int LENGTH_OFFSET = RECORD_BYTES - 1;
+
+    enum Durability {
+        ASYNC,       //left to the OS, forced on sync() and close()
+        GROUP_COMMIT //record(type) returns once the order is on disk
+    }
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final long recordsPerSegment;
+    private final Durability durability;
+    private final ConcurrentHashMap<String, byte[]> encoded = new ConcurrentHashMap<>(); //types are few, the menu
+    private final List<MappedByteBuffer> segments = new ArrayList<>(); //guarded by this, null once forced and full
+    private final Object forceLock = new Object();
+    private long next; //guarded by this, sequence of the next record
+    private volatile long durable; //records below are on disk
+    private volatile long forces;
+    private boolean closed; //guarded by this
+
+    private OrderJournal(Path dir, int segmentBytes, Durability durability) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.recordsPerSegment = segmentBytes / RECORD_BYTES;
+        this.durability = durability;
+    }
+
+    /**
+     * Open the journal in dir, creating it if needed, new records go after the ones already there
+     *
+     * @param segmentBytes size of every segment file, a multiple of 4096
+     */
+    static OrderJournal open(Path dir, int segmentBytes, Durability durability) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes % PAGE_BYTES != 0) {
+            throw new IllegalArgumentException("segment size must be a positive multiple of " + PAGE_BYTES + ": " + segmentBytes);
+        }
+        Files.createDirectories(dir);
+        OrderJournal journal = new OrderJournal(dir, segmentBytes, durability);
+        journal.recover();
+        return journal;
+    }
+
+    static OrderJournal open(Path dir, Durability durability) throws IOException {
+        return open(dir, DEFAULT_SEGMENT_BYTES, durability);
+    }
+
+    /**
+     * Append the order, and with GROUP_COMMIT wait until it is durable
+     *
+     * @throws IllegalArgumentException if the type is empty or longer than 23 bytes in UTF-8
+     */
+    void record(String type) {
+        long sequence = append(type);
+        if (durability == Durability.GROUP_COMMIT) {
+            commit(sequence);
+        }
+    }
+
+    /**
+     * Check that the type fits a record before the order is cooked, record would fail after it
+     *
+     * @throws IllegalArgumentException if the type is empty or longer than 23 bytes in UTF-8
+     */
+    void checkType(String type) {
+        if (!encoded.containsKey(type)) {
+            encode(type); //not cached, unknown types must not pile up before the store rejects them
+        }
+    }
+
+    /**
+     * @return sequence of the record, pass it to commit to wait until it is durable
+     */
+    long append(String type) {
+        byte[] bytes = encoded.get(type);
+        if (bytes == null) {
+            bytes = encoded.computeIfAbsent(type, OrderJournal::encode);
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("journal is closed");
+            }
+            long sequence = next;
+            MappedByteBuffer segment = segmentFor(sequence);
+            int offset = (int) (sequence % recordsPerSegment) * RECORD_BYTES;
+            segment.putLong(offset, now);
+            segment.put(offset + 8, bytes, 0, bytes.length);
+            VarHandle.storeStoreFence(); //neither the JIT nor the CPU may move the length before the payload
+            segment.put(offset + LENGTH_OFFSET, (byte) bytes.length); //last, completes the record
+            next = sequence + 1;
+            return sequence;
+        }
+    }
+
+    /**
+     * Group commit: returns once the record is on disk. The first waiting thread forces everything
+     * appended so far, threads arriving meanwhile are covered by that force or share the next one
+     */
+    void commit(long sequence) {
+        if (sequence < durable) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (sequence < durable) {
+                return; //forced while this thread waited for the lock
+            }
+            long target;
+            List<MappedByteBuffer> dirty = new ArrayList<>(2);
+            synchronized (this) {
+                target = next;
+                int from = (int) (durable / recordsPerSegment);
+                for (int i = from; i < segments.size() && (long) i * recordsPerSegment < target; i++) {
+                    dirty.add(segments.get(i));
+                    if ((long) (i + 1) * recordsPerSegment <= target) {
+                        segments.set(i, null); //full, nothing will be written there again
+                    }
+                }
+            }
+            for (MappedByteBuffer segment : dirty) { //outside the append lock, orders keep coming in
+                segment.force();
+            }
+            forces++;
+            durable = target;
+        }
+    }
+
+    /**
+     * Force everything appended so far
+     */
+    void sync() {
+        long last;
+        synchronized (this) {
+            last = next - 1;
+        }
+        if (last >= 0) {
+            commit(last);
+        }
+    }
+
+    synchronized long size() {
+        return next;
+    }
+
+    /**
+     * @return forces of the mapping so far, below the number of orders when group commit batches them
+     */
+    long forces() {
+        return forces;
+    }
+
+    @Override
+    public void close() {
+        sync();
+        synchronized (this) {
+            closed = true;
+            segments.clear();
+        }
+    }
+
+    /**
+     * Feed every order in the journal to orders, oldest first, e.g. {@code type -> store.orderPizza(type)}
+     * Does not allocate per record for menus of up to 64 types
+     *
+     * @return orders replayed
+     */
+    static long replay(Path dir, Consumer<String> orders) throws IOException {
+        List<Path> files = segmentFiles(dir);
+        TypeCache types = new TypeCache();
+        long count = 0;
+        for (Path file : files) {
+            MappedByteBuffer segment = map(file, FileChannel.MapMode.READ_ONLY, Files.size(file));
+            int records = segment.capacity() / RECORD_BYTES;
+            for (int i = 0; i < records; i++) {
+                int offset = i * RECORD_BYTES;
+                int length = segment.get(offset + LENGTH_OFFSET);
+                if (length == 0) {
+                    return count; //end of the journal
+                }
+                if (length < 0 || length > MAX_TYPE_BYTES) {
+                    throw new IllegalStateException("corrupt record " + i + " in " + file);
+                }
+                orders.accept(types.typeAt(segment, offset + 8, length));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = segmentFiles(dir);
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            if (!file.getFileName().toString().equals(fileName(i))) {
+                throw new IllegalStateException("missing segment " + fileName(i) + " in " + dir);
+            }
+            if (Files.size(file) != segmentBytes) {
+                throw new IllegalStateException(file + " is not " + segmentBytes + " bytes, open with its segment size");
+            }
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < files.size() - 1; i++) {
+            segments.add(null); //earlier segments are full and on disk
+        }
+        MappedByteBuffer last = mapSegment(files.size() - 1);
+        segments.add(last);
+        long used = 0;
+        while (used < recordsPerSegment && last.get((int) used * RECORD_BYTES + LENGTH_OFFSET) != 0) {
+            used++;
+        }
+        next = (files.size() - 1) * recordsPerSegment + used;
+        durable = next;
+    }
+
+    private MappedByteBuffer segmentFor(long sequence) {
+        int index = (int) (sequence / recordsPerSegment);
+        while (segments.size() <= index) {
+            try {
+                segments.add(mapSegment(segments.size()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot create segment " + fileName(segments.size()), e);
+            }
+        }
+        return segments.get(index);
+    }
+
+    private MappedByteBuffer mapSegment(int index) throws IOException {
+        return map(dir.resolve(fileName(index)), FileChannel.MapMode.READ_WRITE, segmentBytes);
+    }
+
+    private static MappedByteBuffer map(Path file, FileChannel.MapMode mode, long bytes) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(file, options)) { //the mapping outlives the channel
+            MappedByteBuffer buffer = channel.map(mode, 0, bytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private static List<Path> segmentFiles(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().matches("orders-\\d{6}\\.journal"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String fileName(int index) {
+        return String.format("orders-%06d.journal", index);
+    }
+
+    private static byte[] encode(String type) {
+        byte[] bytes = type.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0 || bytes.length > MAX_TYPE_BYTES) {
+            throw new IllegalArgumentException("pizza type must be 1 to " + MAX_TYPE_BYTES + " bytes to be journaled: " + type);
+        }
+        return bytes;
+    }
+
+    /**
+     * Decoded types keyed by the three longs holding type and length of a record, linear scan
+     */
+    private static final class TypeCache {
+        private static final int SIZE = 64;
+        private final long[] keys = new long[SIZE * 3];
+        private final String[] types = new String[SIZE];
+        private int size;
+
+        String typeAt(MappedByteBuffer segment, int offset, int length) {
+            long a = segment.getLong(offset);
+            long b = segment.getLong(offset + 8);
+            long c = segment.getLong(offset + 16);
+            for (int i = 0; i < size; i++) {
+                if (keys[i * 3] == a && keys[i * 3 + 1] == b && keys[i * 3 + 2] == c) {
+                    return types[i];
+                }
+            }
+            byte[] bytes = new byte[length];
+            segment.get(offset, bytes);
+            String type = new String(bytes, StandardCharsets.UTF_8);
+            if (size < SIZE) {
+                keys[size * 3] = a;
+                keys[size * 3 + 1] = b;
+                keys[size * 3 + 2] = c;
+                types[size++] = type;
+            }
+            return type;
+        }
+    }
+}
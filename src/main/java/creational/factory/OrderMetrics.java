@@ -0,0 +1,262 @@
+package creational.factory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Order counters and per stage latency histograms of one store, one set per pizza type
+ * The recording path is lock free and does not allocate once a pizza type has been seen,
+ * the store is published to JMX as a StoreMetricsMXBean right away and each pizza type as a
+ * PizzaMetricsMXBean on its first order. close() unregisters all of them
+ */
+final class OrderMetrics implements StoreMetricsMXBean, AutoCloseable {
+
+    private final String store;
+    private final ConcurrentHashMap<String, TypeMetrics> types = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder(); //orders failing in getPizza, e.g. unknown type
+    private final MBeanServer server;
+    private final List<ObjectName> registered = new ArrayList<>(); //guarded by itself
+    private boolean closed; //guarded by registered
+
+    /**
+     * @param store name of the store in the JMX object names, unique among the open metrics of a server
+     * @param server where the store and its pizza types are registered, null to keep metrics in process only
+     * @throws IllegalStateException if metrics of a store with the same name are registered and not closed
+     */
+    OrderMetrics(String store, MBeanServer server) {
+        this.store = store;
+        this.server = server;
+        register(this, "type=StoreMetrics,store=" + ObjectName.quote(store));
+    }
+
+    OrderMetrics(String store) {
+        this(store, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Create the pizza and run every lifecycle stage, timing each of them
+     */
+    Pizza order(String type, Function<String, Pizza> creator) {
+        long start = System.nanoTime();
+        return cook(type, create(type, creator), start);
+    }
+
+    /**
+     * @return pizza of the type, creation failures, e.g. unknown type, are counted as rejected
+     */
+    Pizza create(String type, Function<String, Pizza> creator) {
+        try {
+            return creator.apply(type);
+        } catch (RuntimeException e) {
+            rejected.increment(); //not per type, unknown types would grow the map without bound
+            throw e;
+        }
+    }
+
+    /**
+     * Run every lifecycle stage of a created pizza, timing each of them
+     *
+     * @param start nano time the order started, before the pizza was created
+     */
+    Pizza cook(String type, Pizza pizza, long start) {
+        TypeMetrics metrics = forType(type);
+        long time = System.nanoTime();
+        try {
+            pizza.prepare();
+            time = record(metrics.prepare, time);
+            pizza.bake();
+            time = record(metrics.bake, time);
+            pizza.cut();
+            time = record(metrics.cut, time);
+            pizza.box();
+            record(metrics.box, time);
+        } catch (Throwable e) {
+            metrics.failed.increment();
+            throw e;
+        }
+        metrics.order.record(System.nanoTime() - start);
+        return pizza;
+    }
+
+    /**
+     * Record one lifecycle stage of a pizza cooked elsewhere, e.g. by a Kitchen stage worker
+     *
+     * @param failed the stage threw, counted as a failed order of the type
+     */
+    void stage(String type, Kitchen.Stage stage, long nanos, boolean failed) {
+        TypeMetrics metrics = forType(type);
+        if (failed) {
+            metrics.failed.increment();
+            return;
+        }
+        switch (stage) {
+            case PREPARE:
+                metrics.prepare.record(nanos);
+                break;
+            case BAKE:
+                metrics.bake.record(nanos);
+                break;
+            case CUT:
+                metrics.cut.record(nanos);
+                break;
+            case BOX:
+                metrics.box.record(nanos);
+                break;
+        }
+    }
+
+    /**
+     * Record an order whose stages were recorded with stage(...)
+     *
+     * @param start nano time the order started, before the pizza was created
+     */
+    void completed(String type, long start) {
+        forType(type).order.record(System.nanoTime() - start);
+    }
+
+    long rejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected();
+    }
+
+    @Override
+    public long getFailed() {
+        long failed = 0;
+        for (TypeMetrics metrics : types.values()) {
+            failed += metrics.getFailed();
+        }
+        return failed;
+    }
+
+    @Override
+    public long getOrders() {
+        long orders = 0;
+        for (TypeMetrics metrics : types.values()) {
+            orders += metrics.getOrders();
+        }
+        return orders;
+    }
+
+    /**
+     * Unregister the store and its pizza types from JMX, the name is free for another store afterwards
+     * Orders may still be recorded, pizza types seen from now on are no longer published
+     */
+    @Override
+    public void close() {
+        synchronized (registered) {
+            closed = true;
+            for (ObjectName name : registered) {
+                try {
+                    server.unregisterMBean(name);
+                } catch (InstanceNotFoundException e) {
+                    //unregistered by someone else, nothing left to clean up
+                } catch (JMException e) {
+                    throw new IllegalStateException("Cannot unregister " + name, e);
+                }
+            }
+            registered.clear();
+        }
+    }
+
+    /**
+     * @return metrics of the pizza type, null if it was never ordered
+     */
+    PizzaMetricsMXBean metrics(String type) {
+        return types.get(type);
+    }
+
+    private static long record(LatencyHistogram histogram, long since) {
+        long now = System.nanoTime();
+        histogram.record(now - since);
+        return now;
+    }
+
+    private TypeMetrics forType(String type) {
+        TypeMetrics metrics = types.get(type); //fast path, no capturing lambda
+        return metrics != null ? metrics : types.computeIfAbsent(type, this::register);
+    }
+
+    private TypeMetrics register(String type) {
+        TypeMetrics metrics = new TypeMetrics();
+        register(metrics, "type=PizzaMetrics,store=" + ObjectName.quote(store) + ",pizza=" + ObjectName.quote(type));
+        return metrics;
+    }
+
+    private void register(Object bean, String properties) {
+        if (server == null) {
+            return;
+        }
+        synchronized (registered) {
+            if (closed) {
+                return;
+            }
+            try {
+                ObjectName name = new ObjectName("creational.factory:" + properties);
+                server.registerMBean(bean, name);
+                registered.add(name);
+            } catch (InstanceAlreadyExistsException e) {
+                throw new IllegalStateException("Metrics of store " + store
+                        + " are already registered, close them or choose another store name", e);
+            } catch (JMException e) {
+                throw new IllegalStateException("Cannot register metrics of store " + store, e);
+            }
+        }
+    }
+
+    static final class TypeMetrics implements PizzaMetricsMXBean {
+        private final LatencyHistogram order = new LatencyHistogram();
+        private final LatencyHistogram prepare = new LatencyHistogram();
+        private final LatencyHistogram bake = new LatencyHistogram();
+        private final LatencyHistogram cut = new LatencyHistogram();
+        private final LatencyHistogram box = new LatencyHistogram();
+        private final LongAdder failed = new LongAdder();
+
+        @Override
+        public long getOrders() {
+            return order.snapshot().getCount();
+        }
+
+        @Override
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        @Override
+        public LatencySnapshot getOrderLatency() {
+            return order.snapshot();
+        }
+
+        @Override
+        public LatencySnapshot getPrepareLatency() {
+            return prepare.snapshot();
+        }
+
+        @Override
+        public LatencySnapshot getBakeLatency() {
+            return bake.snapshot();
+        }
+
+        @Override
+        public LatencySnapshot getCutLatency() {
+            return cut.snapshot();
+        }
+
+        @Override
+        public LatencySnapshot getBoxLatency() {
+            return box.snapshot();
+        }
+    }
+}
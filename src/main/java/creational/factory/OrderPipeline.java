@@ -0,0 +1,253 @@
+package creational.factory;
+
+import creational.EventSinks;
+import creational.Lazy;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Everything between an order and its boxed pizza that is not pizza creation: admission, pooling,
+ * metrics, journal, the kitchen for batches and the executor for async orders. Each store owns one
+ * and only supplies how a type becomes a pizza, so the factory classes stay about creating pizzas
+ *
+ * Every feature is opt-in and enabled before the store is shared between threads
+ */
+final class OrderPipeline {
+
+    private final Function<String, Pizza> factory;
+    private final Supplier<PizzaMenu> menu;
+    private final Function<String, Pizza> creator = this::newPizza;
+    private final Function<String, Pizza> admittedOrders = this::process;
+    private final Lazy<Kitchen> kitchen = Lazy.of(() -> new Kitchen(this::create, this::discard, this::stageDone));
+    private Executor orderExecutor = OrderExecutors.virtualThreadPerOrder();
+    private PizzaPool pool; //null unless pooled mode is enabled
+    private OrderMetrics metrics; //null unless metrics are enabled
+    private OrderJournal journal; //null unless journaling is enabled
+    private AdmissionControl admission; //null unless admission control is enabled
+
+    /**
+     * @param factory creates the pizza of a type, throws IllegalArgumentException for unknown type
+     * @param menu    menu the factory creates from, null if it has none, asked when a feature needs it
+     */
+    OrderPipeline(Function<String, Pizza> factory, Supplier<PizzaMenu> menu) {
+        this.factory = Objects.requireNonNull(factory, "factory");
+        this.menu = Objects.requireNonNull(menu, "menu");
+    }
+
+    /**
+     * @throws OrderRejectedException if admission control is enabled and the store is at its limit
+     */
+    Pizza order(String type) {
+        AdmissionControl admission = this.admission;
+        return admission != null ? admission.order(type, admittedOrders) : process(type);
+    }
+
+    /**
+     * @return future completed with the boxed pizza, or exceptionally e.g. for unknown type or with an
+     * OrderRejectedException, admission happens before the order is queued on the executor
+     */
+    CompletableFuture<Pizza> orderAsync(String type) {
+        AdmissionControl admission = this.admission;
+        if (admission != null) {
+            return admission.orderAsync(type, admittedOrders, orderExecutor);
+        }
+        return CompletableFuture.supplyAsync(() -> process(type), orderExecutor);
+    }
+
+    /**
+     * Admission, metrics and journal as for single orders, each applied to every order of the batch
+     *
+     * @return pizzas in the order of types, cooked in the kitchen pipeline
+     * @throws OrderRejectedException if admission control is enabled and the whole batch does not fit its limit
+     */
+    List<Pizza> orderBatch(List<String> types) throws InterruptedException {
+        AdmissionControl admission = this.admission;
+        if (admission == null) {
+            return processBatch(types);
+        }
+        long[] admittedAt = admission.admitAll(types.size());
+        boolean completed = false;
+        try {
+            List<Pizza> pizzas = processBatch(types);
+            completed = true;
+            return pizzas;
+        } finally {
+            admission.releaseAll(admittedAt, completed);
+        }
+    }
+
+    private List<Pizza> processBatch(List<String> types) throws InterruptedException {
+        OrderJournal journal = this.journal;
+        if (journal != null) {
+            for (String type : types) {
+                journal.checkType(type); //fail before cooking, not after
+            }
+        }
+        long start = System.nanoTime();
+        List<Pizza> pizzas = kitchen.get().cook(types); //stages are timed by stageDone
+        OrderMetrics metrics = this.metrics;
+        if (metrics != null) {
+            for (String type : types) {
+                metrics.completed(type, start); //the order waited for the whole batch
+            }
+        }
+        if (journal != null) {
+            for (String type : types) {
+                journal.record(type);
+            }
+        }
+        return pizzas;
+    }
+
+    private Pizza process(String type) {
+        OrderJournal journal = this.journal;
+        if (journal != null) {
+            journal.checkType(type); //fail before cooking, not after
+        }
+        OrderMetrics metrics = this.metrics;
+        long start = System.nanoTime();
+        Pizza pizza = metrics != null ? metrics.create(type, creator) : newPizza(type);
+        try {
+            if (metrics != null) {
+                metrics.cook(type, pizza, start); //same lifecycle, timed
+            } else {
+                pizza.prepare();
+                pizza.bake();
+                pizza.cut();
+                pizza.box();
+            }
+        } catch (Throwable e) {
+            discard(pizza);
+            throw e;
+        }
+        if (journal != null) {
+            journal.record(type); //only orders which went through, replay never meets an unknown type
+        }
+        return pizza;
+    }
+
+    private Pizza create(String type) {
+        OrderMetrics metrics = this.metrics;
+        return metrics != null ? metrics.create(type, creator) : newPizza(type);
+    }
+
+    private void stageDone(String type, Kitchen.Stage stage, long nanos, boolean failed) {
+        OrderMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.stage(type, stage, nanos, failed);
+        }
+    }
+
+    Pizza newPizza(String type) {
+        PizzaPool pool = this.pool;
+        return pool != null ? pool.acquire(type) : factory.apply(type);
+    }
+
+    /**
+     * Delivery of the pizza is complete, in pooled mode it is recycled and must not be used any more
+     */
+    void deliver(Pizza pizza) {
+        PizzaPool pool = this.pool;
+        if (pool != null) {
+            pool.release(pizza);
+        }
+    }
+
+    //a pizza of a failed order is never delivered, the pool must not keep tracking it
+    private void discard(Pizza pizza) {
+        PizzaPool pool = this.pool;
+        if (pool != null) {
+            pool.discard(pizza);
+        }
+    }
+
+    /**
+     * Orders hand out recycled pizzas which callers give back with deliver(pizza)
+     *
+     * @param capacityPerType pizzas kept per type and thread
+     * @throws UnsupportedOperationException if the store has no menu to pool pizzas of
+     */
+    void enablePooling(int capacityPerType) {
+        PizzaMenu menu = this.menu.get();
+        if (menu == null) {
+            throw new UnsupportedOperationException("Store has no PizzaMenu, pooling is not supported");
+        }
+        this.pool = new PizzaPool(menu, capacityPerType);
+    }
+
+    /**
+     * Record every completed order in the journal, OrderJournal.replay feeds them to a store again
+     */
+    void enableJournal(OrderJournal journal) {
+        this.journal = Objects.requireNonNull(journal, "journal");
+    }
+
+    /**
+     * Admit or reject every order on arrival, order throws and orderAsync fails fast with an
+     * OrderRejectedException once a limit is hit
+     */
+    void enableAdmission(AdmissionControl admission) {
+        this.admission = Objects.requireNonNull(admission, "admission");
+    }
+
+    /**
+     * Count orders and time every lifecycle stage per pizza type, published over JMX
+     * Metrics enabled before are closed
+     *
+     * @throws IllegalStateException if another store publishes metrics under the name
+     */
+    void enableMetrics(String storeName) {
+        OrderMetrics previous = this.metrics;
+        if (previous != null) {
+            previous.close();
+        }
+        this.metrics = new OrderMetrics(storeName);
+    }
+
+    /**
+     * Stop recording and unregister the metrics from JMX
+     */
+    void disableMetrics() {
+        OrderMetrics metrics = this.metrics;
+        this.metrics = null;
+        if (metrics != null) {
+            metrics.close();
+        }
+    }
+
+    OrderMetrics metrics() {
+        return metrics;
+    }
+
+    PizzaPool pool() {
+        return pool;
+    }
+
+    /**
+     * Replace the executor used by orderAsync, e.g. a bounded pool
+     */
+    void orderExecutor(Executor executor) {
+        this.orderExecutor = Objects.requireNonNull(executor, "executor");
+    }
+
+    /**
+     * Load and initialise now what the first order would otherwise pay for, the event sink and
+     * every pizza class on the menu
+     */
+    void preInitialize() {
+        EventSinks.current();
+        PizzaMenu menu = this.menu.get();
+        if (menu != null) {
+            menu.preInitialize();
+        }
+    }
+
+    Kitchen kitchen() {
+        return kitchen.get();
+    }
+}
@@ -0,0 +1,143 @@
+package creational.factory;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sources dough, cheese and sauce of a pizza at the same time, one virtual thread each, so prepare()
+ * waits for the slowest ingredient instead of the sum of all three. Structured: the forks never
+ * outlive createIngredients(), the first failure or missed deadline cancels (interrupts) the others
+ * and createIngredients() returns only once every fork has finished
+ *
+ * Single ingredients are created directly by the wrapped factory
+ */
+final class ParallelIngredientFactory implements PizzaIngredientFactory {
+
+    private static final int DOUGH = 0;
+    private static final int CHEESE = 1;
+    private static final int SAUCE = 2;
+    private static final String[] NAMES = {"dough", "cheese", "sauce"};
+
+    private final PizzaIngredientFactory factory;
+    private final long[] timeoutNanos;
+
+    /**
+     * @param timeout for each ingredient, counted from the start of createIngredients()
+     */
+    ParallelIngredientFactory(PizzaIngredientFactory factory, Duration timeout) {
+        this(factory, timeout, timeout, timeout);
+    }
+
+    ParallelIngredientFactory(PizzaIngredientFactory factory, Duration doughTimeout, Duration cheeseTimeout,
+                              Duration sauceTimeout) {
+        this.factory = factory;
+        this.timeoutNanos = new long[]{doughTimeout.toNanos(), cheeseTimeout.toNanos(), sauceTimeout.toNanos()};
+    }
+
+    @Override
+    public Dough createDough() {
+        return factory.createDough();
+    }
+
+    @Override
+    public Cheese createCheese() {
+        return factory.createCheese();
+    }
+
+    @Override
+    public Sauce createSauce() {
+        return factory.createSauce();
+    }
+
+    /**
+     * @throws IngredientSourcingException naming the first ingredient which failed or missed its deadline
+     */
+    @Override
+    public Ingredients createIngredients() {
+        long start = System.nanoTime();
+        Object[] sourced = new Object[NAMES.length];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Future<Object>[] forks = new Future[NAMES.length];
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) { //close() joins every fork
+            ExecutorCompletionService<Object> completed = new ExecutorCompletionService<>(scope);
+            forks[DOUGH] = completed.submit(factory::createDough);
+            forks[CHEESE] = completed.submit(factory::createCheese);
+            forks[SAUCE] = completed.submit(factory::createSauce);
+            try {
+                for (int remaining = NAMES.length; remaining > 0; remaining--) {
+                    Future<Object> fork = next(completed, forks, start);
+                    int ingredient = indexOf(forks, fork);
+                    sourced[ingredient] = result(fork, ingredient);
+                }
+            } finally {
+                for (Future<Object> fork : forks) {
+                    fork.cancel(true); //no-op for finished forks, interrupts the others
+                }
+            }
+        }
+        return new Ingredients((Dough) sourced[DOUGH], (Cheese) sourced[CHEESE], (Sauce) sourced[SAUCE]);
+    }
+
+    private Future<Object> next(ExecutorCompletionService<Object> completed, Future<Object>[] forks, long start) {
+        while (true) {
+            int waitingFor = -1; //pending fork with the earliest deadline
+            for (int i = 0; i < forks.length; i++) {
+                if (!forks[i].isDone() && (waitingFor < 0 || timeoutNanos[i] < timeoutNanos[waitingFor])) {
+                    waitingFor = i;
+                }
+            }
+            long wait = waitingFor < 0 ? 0 : start + timeoutNanos[waitingFor] - System.nanoTime();
+            try {
+                Future<Object> fork = completed.poll(Math.max(wait, 0), TimeUnit.NANOSECONDS);
+                if (fork != null) {
+                    return fork;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IngredientSourcingException("interrupted while sourcing ingredients", e);
+            }
+            if (waitingFor >= 0 && !forks[waitingFor].isDone() && System.nanoTime() - start >= timeoutNanos[waitingFor]) {
+                throw new IngredientSourcingException(NAMES[waitingFor] + " not sourced within "
+                        + Duration.ofNanos(timeoutNanos[waitingFor]), new TimeoutException());
+            }
+        }
+    }
+
+    private static int indexOf(Future<Object>[] forks, Future<Object> fork) {
+        for (int i = 0; i < forks.length; i++) {
+            if (forks[i] == fork) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("not a fork of this call");
+    }
+
+    private static Object result(Future<Object> fork, int ingredient) {
+        try {
+            return fork.get(); //done already
+        } catch (ExecutionException e) {
+            throw new IngredientSourcingException("cannot source " + NAMES[ingredient], e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IngredientSourcingException("interrupted while sourcing ingredients", e);
+        }
+    }
+}
+
+/**
+ * An ingredient could not be sourced for a pizza, the cause says why, e.g. a TimeoutException
+ */
+class IngredientSourcingException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    IngredientSourcingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
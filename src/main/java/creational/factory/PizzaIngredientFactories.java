@@ -0,0 +1,273 @@
+package creational.factory;
+
+import creational.Multiton;
+import creational.Swappable;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * One caching PizzaIngredientFactory per region, created on first use of the region
+ * The factory behind a region can be replaced while orders are in flight, see swapRegion
+ *
+ * Bounded registries keep the factories of at most maxRegions regions, so regions whose factories
+ * hold state (connections, supplier contracts...) do not pile up. What is evicted is the factory,
+ * never what stores hold: forRegion always returns the same RegionIngredientFactory, which recreates
+ * its factory on the next ingredient after an eviction, from the latest swapRegion if any
+ */
+final class PizzaIngredientFactories {
+
+    private static final PizzaIngredientFactories SHARED = new PizzaIngredientFactories(Integer.MAX_VALUE, null);
+
+    private final Multiton<String, RegionIngredientFactory> regions = Multiton.of(this::newRegion);
+    private final Multiton<String, RegionIngredientFactory.Activation> active; //null when never evicting
+    private final Consumer<? super PizzaIngredientFactory> onEvict;
+
+    private PizzaIngredientFactories(int maxRegions, Consumer<? super PizzaIngredientFactory> onEvict) {
+        this.onEvict = onEvict;
+        this.active = maxRegions == Integer.MAX_VALUE ? null
+                : Multiton.bounded(this::activate, maxRegions, RegionIngredientFactory.Activation::evict);
+    }
+
+    /**
+     * @return registry keeping every region used so far
+     */
+    static PizzaIngredientFactories shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return registry of its own, swaps on it are not seen by stores of the shared one
+     */
+    static PizzaIngredientFactories newRegistry() {
+        return new PizzaIngredientFactories(Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * @param maxRegions regions whose factories are kept, the least used one is evicted beyond
+     * @param onEvict    gets the factory of an evicted region, e.g. to close it, may be null
+     */
+    static PizzaIngredientFactories bounded(int maxRegions, Consumer<? super PizzaIngredientFactory> onEvict) {
+        if (maxRegions <= 0 || maxRegions == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxRegions out of range: " + maxRegions);
+        }
+        return new PizzaIngredientFactories(maxRegions, onEvict);
+    }
+
+    /**
+     * @return the same factory for every call with the region, it follows swapRegion and evictions
+     * @throws IllegalArgumentException if there is no ingredient factory for the region
+     */
+    PizzaIngredientFactory forRegion(String region) {
+        RegionIngredientFactory factory = regions.getInstance(region);
+        if (active != null) {
+            active.getInstance(region);
+        }
+        return factory;
+    }
+
+    /**
+     * Switch the region to another factory, e.g. new suppliers, without a restart. Pizzas prepared
+     * from now on get ingredients of the new factory, shared ingredients are cached afresh
+     *
+     * A region not used yet is created first, so its stores start with the new factory. In a
+     * bounded registry an evicted region is recreated with the same instance, after onEvict had it:
+     * pass a Supplier to get a fresh one
+     *
+     * @return factory the region used so far, null if it was evicted and handed to onEvict
+     * @throws IllegalArgumentException if there is no ingredient factory for the region
+     */
+    PizzaIngredientFactory swapRegion(String region, PizzaIngredientFactory factory) {
+        Objects.requireNonNull(factory, "factory");
+        return swapRegion(region, () -> factory);
+    }
+
+    /**
+     * swapRegion with the factory created by source, now and again whenever the region is used
+     * after an eviction
+     */
+    PizzaIngredientFactory swapRegion(String region, Supplier<? extends PizzaIngredientFactory> source) {
+        return regions.getInstance(region).swap(source);
+    }
+
+    private RegionIngredientFactory newRegion(String region) {
+        return new RegionIngredientFactory(region, () -> create(region), active);
+    }
+
+    private RegionIngredientFactory.Activation activate(String region) {
+        return regions.getInstance(region).activate(onEvict);
+    }
+
+    private static PizzaIngredientFactory create(String region) {
+        switch (region) {
+            case "mumbai":
+                return new MumbaiPizzaIngredientFactory();
+            case "delhi":
+                return new DelhiPizzaIngredientFactory();
+            default:
+                throw new IllegalArgumentException("Unknown region: " + region);
+        }
+    }
+}
+
+/**
+ * What stores of a region hold on to: every call goes to the region's current factory,
+ * one acquire load, so a swap needs no lock on the ingredient path
+ *
+ * In a bounded registry every call also marks the region used, and an evicted region gets its
+ * factory back from its source. A call racing an eviction may still use the evicted factory
+ */
+final class RegionIngredientFactory implements PizzaIngredientFactory {
+
+    private static final CachingIngredientFactory EVICTED = new CachingIngredientFactory(null);
+
+    final Swappable<CachingIngredientFactory> factory;
+    private final String region;
+    private final Multiton<String, Activation> active; //null when never evicted
+    //guarded by this, swaps, evictions and reactivations are rare
+    private Supplier<? extends PizzaIngredientFactory> source;
+    private Activation activation; //owns the current factory, an older one must not evict it
+
+    RegionIngredientFactory(String region, Supplier<? extends PizzaIngredientFactory> source,
+                            Multiton<String, Activation> active) {
+        this.region = region;
+        this.source = source;
+        this.active = active;
+        this.factory = Swappable.of(new CachingIngredientFactory(source.get()));
+    }
+
+    @Override
+    public Dough createDough() {
+        return current().createDough();
+    }
+
+    @Override
+    public Cheese createCheese() {
+        return current().createCheese();
+    }
+
+    @Override
+    public Sauce createSauce() {
+        return current().createSauce();
+    }
+
+    private CachingIngredientFactory current() {
+        if (active == null) {
+            return factory.get();
+        }
+        Activation activation = active.getInstance(region); //marks the region used, activates it again once evicted
+        CachingIngredientFactory current = factory.get();
+        //evicted again right away by another region's activation: no retry, regions could evict each other forever
+        return current != EVICTED ? current : activation.factory;
+    }
+
+    synchronized PizzaIngredientFactory swap(Supplier<? extends PizzaIngredientFactory> next) {
+        source = next;
+        if (factory.get() == EVICTED) {
+            return null; //created from next on the next use
+        }
+        CachingIngredientFactory swapped = new CachingIngredientFactory(next.get());
+        if (activation != null) {
+            activation.factory = swapped;
+        }
+        return factory.swap(swapped).factory;
+    }
+
+    synchronized Activation activate(Consumer<? super PizzaIngredientFactory> onEvict) {
+        CachingIngredientFactory current = factory.get();
+        if (current == EVICTED) {
+            current = new CachingIngredientFactory(source.get());
+            factory.swap(current);
+        }
+        activation = new Activation(this, current, onEvict);
+        return activation;
+    }
+
+    /**
+     * The region holding a factory in a bounded registry, evicting it drops the factory
+     */
+    static final class Activation {
+        private final RegionIngredientFactory region;
+        private final Consumer<? super PizzaIngredientFactory> onEvict;
+        private volatile CachingIngredientFactory factory; //the region's factory while this activation owns it
+
+        private Activation(RegionIngredientFactory region, CachingIngredientFactory factory,
+                           Consumer<? super PizzaIngredientFactory> onEvict) {
+            this.region = region;
+            this.factory = factory;
+            this.onEvict = onEvict;
+        }
+
+        void evict() {
+            CachingIngredientFactory evicted;
+            synchronized (region) {
+                if (region.activation != this) {
+                    return; //activated again meanwhile, the factory belongs to the newer activation
+                }
+                region.activation = null;
+                evicted = region.factory.swap(EVICTED);
+            }
+            if (onEvict != null) {
+                onEvict.accept(evicted.factory);
+            }
+        }
+    }
+}
+
+/**
+ * Serves shared ingredients (flyweights) of a region: the first SharedIngredient of each kind
+ * created by the wrapped factory is handed out to every later pizza, stateful ingredients are
+ * still created fresh by the wrapped factory every time
+ */
+class CachingIngredientFactory implements PizzaIngredientFactory {
+
+    final PizzaIngredientFactory factory;
+    //benign races: at worst two threads each create an equivalent stateless ingredient once
+    private volatile Dough dough;
+    private volatile Cheese cheese;
+    private volatile Sauce sauce;
+
+    CachingIngredientFactory(PizzaIngredientFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public Dough createDough() {
+        Dough shared = dough;
+        if (shared != null) {
+            return shared;
+        }
+        Dough created = factory.createDough();
+        if (created instanceof SharedIngredient) {
+            dough = created;
+        }
+        return created;
+    }
+
+    @Override
+    public Cheese createCheese() {
+        Cheese shared = cheese;
+        if (shared != null) {
+            return shared;
+        }
+        Cheese created = factory.createCheese();
+        if (created instanceof SharedIngredient) {
+            cheese = created;
+        }
+        return created;
+    }
+
+    @Override
+    public Sauce createSauce() {
+        Sauce shared = sauce;
+        if (shared != null) {
+            return shared;
+        }
+        Sauce created = factory.createSauce();
+        if (created instanceof SharedIngredient) {
+            sauce = created;
+        }
+        return created;
+    }
+}
@@ -0,0 +1,164 @@
+package creational.factory;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Registration based replacement of the type.equals(...) if/else chains of pizza factories
+ * Each pizza type maps to a pre-resolved constructor reference, lookup is a single hash probe
+ * whatever the size of the menu and does not allocate. Unknown types fail fast instead of returning null
+ *
+ * Immutable once built, so it is safe to share one menu between threads and stores
+ */
+final class PizzaMenu {
+
+    private final String[] types; //open addressing table, power of two length, at most half full
+    private final Supplier<? extends Pizza>[] constructors;
+    private final int mask;
+    private final int size;
+
+    private PizzaMenu(String[] types, Supplier<? extends Pizza>[] constructors, int size) {
+        this.types = types;
+        this.constructors = constructors;
+        this.mask = types.length - 1;
+        this.size = size;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param type of pizza
+     * @return new Pizza instance of the given type
+     * @throws IllegalArgumentException if the type is not on the menu
+     */
+    Pizza create(String type) {
+        return constructorOf(type).get();
+    }
+
+    boolean offers(String type) {
+        return indexOf(type) >= 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Supplier<? extends Pizza> constructorOf(String type) {
+        return constructors[slotOf(type)];
+    }
+
+    /**
+     * @return stable index of the type in [0, slots()), used to keep per-type data in plain arrays
+     * @throws IllegalArgumentException if the type is not on the menu
+     */
+    int slotOf(String type) {
+        int index = indexOf(type);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown pizza type: " + type);
+        }
+        return index;
+    }
+
+    Pizza createAt(int slot) {
+        return constructors[slot].get();
+    }
+
+    int slots() {
+        return types.length;
+    }
+
+    /**
+     * @return type at the slot, null for a free slot
+     */
+    String typeAt(int slot) {
+        return types[slot];
+    }
+
+    /**
+     * Create one pizza of every type and drop it, so their classes are loaded and initialised
+     */
+    void preInitialize() {
+        for (Supplier<? extends Pizza> constructor : constructors) {
+            if (constructor != null) {
+                constructor.get();
+            }
+        }
+    }
+
+    private int indexOf(String type) {
+        Objects.requireNonNull(type, "type");
+        for (int i = spread(type.hashCode()) & mask; ; i = (i + 1) & mask) { //String caches its hash
+            String candidate = types[i];
+            if (candidate == null) {
+                return -1;
+            }
+            if (candidate.equals(type)) {
+                return i;
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    static final class Builder {
+        private String[] types = new String[8];
+        private Supplier<? extends Pizza>[] constructors = newTable(8);
+        private int size;
+
+        private Builder() {
+        }
+
+        Builder add(String type, Supplier<? extends Pizza> constructor) {
+            Objects.requireNonNull(type, "type");
+            Objects.requireNonNull(constructor, "constructor");
+            if ((size + 1) * 2 > types.length) {
+                resize(types.length * 2);
+            }
+            if (!insert(types, constructors, type, constructor)) {
+                throw new IllegalArgumentException("Duplicate pizza type: " + type);
+            }
+            size++;
+            return this;
+        }
+
+        PizzaMenu build() {
+            return new PizzaMenu(types.clone(), constructors.clone(), size);
+        }
+
+        private void resize(int capacity) {
+            String[] newTypes = new String[capacity];
+            Supplier<? extends Pizza>[] newConstructors = newTable(capacity);
+            for (int i = 0; i < types.length; i++) {
+                if (types[i] != null) {
+                    insert(newTypes, newConstructors, types[i], constructors[i]);
+                }
+            }
+            types = newTypes;
+            constructors = newConstructors;
+        }
+
+        private static boolean insert(String[] types, Supplier<? extends Pizza>[] constructors,
+                                      String type, Supplier<? extends Pizza> constructor) {
+            int mask = types.length - 1;
+            for (int i = spread(type.hashCode()) & mask; ; i = (i + 1) & mask) {
+                if (types[i] == null) {
+                    types[i] = type;
+                    constructors[i] = constructor;
+                    return true;
+                }
+                if (types[i].equals(type)) {
+                    return false;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Supplier<? extends Pizza>[] newTable(int capacity) {
+            return (Supplier<? extends Pizza>[]) new Supplier<?>[capacity];
+        }
+    }
+}
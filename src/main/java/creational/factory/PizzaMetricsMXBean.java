@@ -0,0 +1,23 @@
+package creational.factory;
+
+/**
+ * JMX view of the orders of one pizza type in one store, registered as
+ * creational.factory:type=PizzaMetrics,store=&lt;store&gt;,pizza=&lt;type&gt;
+ * Latencies are cumulative since the store enabled metrics
+ */
+public interface PizzaMetricsMXBean {
+
+    long getOrders(); //completed orders
+
+    long getFailed(); //orders failing in a lifecycle stage
+
+    LatencySnapshot getOrderLatency(); //getPizza + every lifecycle stage
+
+    LatencySnapshot getPrepareLatency();
+
+    LatencySnapshot getBakeLatency();
+
+    LatencySnapshot getCutLatency();
+
+    LatencySnapshot getBoxLatency();
+}
@@ -0,0 +1,127 @@
+package creational.factory;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recycles pizzas of a PizzaMenu so that the order path does not allocate once the pool is warm
+ * Every platform thread has its own free list per pizza type, so acquire and release never contend.
+ * A pizza released on another thread than the one it was acquired on joins that thread's pool,
+ * pizzas beyond capacityPerType are simply left to the garbage collector
+ *
+ * Virtual threads live for one order, orderPizzaAsync by default, so a free list of theirs would
+ * never be used again: they get new pizzas and released pizzas are dropped, pooling saves nothing
+ * there. Pool with a platform thread executor, see orderExecutor, to recycle async orders
+ *
+ * The pool keeps its bookkeeping to itself: pizzas it created are tracked by identity, Pizza does
+ * not override equals and hashCode, until they are dropped or discarded
+ */
+final class PizzaPool {
+
+    private final PizzaMenu menu;
+    private final int capacityPerType;
+    private final ThreadLocal<FreeLists> freeLists;
+    private final ConcurrentHashMap<Pizza, Pooled> pooled = new ConcurrentHashMap<>();
+
+    PizzaPool(PizzaMenu menu, int capacityPerType) {
+        if (capacityPerType <= 0) {
+            throw new IllegalArgumentException("capacityPerType must be positive: " + capacityPerType);
+        }
+        this.menu = menu;
+        this.capacityPerType = capacityPerType;
+        this.freeLists = ThreadLocal.withInitial(() -> new FreeLists(menu.slots()));
+    }
+
+    /**
+     * @param type of pizza
+     * @return recycled pizza of the type, or a new one if none is free
+     * @throws IllegalArgumentException if the type is not on the menu
+     */
+    Pizza acquire(String type) {
+        int slot = menu.slotOf(type);
+        if (!Thread.currentThread().isVirtual()) {
+            FreeLists lists = freeLists.get();
+            int count = lists.counts[slot];
+            if (count > 0) {
+                Pooled[] free = lists.pizzas[slot];
+                Pooled entry = free[--count];
+                free[count] = null;
+                lists.counts[slot] = count;
+                entry.free = false;
+                return entry.pizza;
+            }
+        }
+        Pizza pizza = menu.createAt(slot);
+        pooled.put(pizza, new Pooled(pizza, slot));
+        return pizza;
+    }
+
+    /**
+     * Reset the pizza and keep it for a later acquire of the same type
+     *
+     * @throws IllegalArgumentException if the pizza was not acquired from this pool
+     * @throws IllegalStateException if the pizza was already released
+     */
+    void release(Pizza pizza) {
+        Pooled entry = pooled.get(pizza);
+        if (entry == null) {
+            throw new IllegalArgumentException("Pizza was not acquired from this pool: " + pizza.getType());
+        }
+        if (entry.free) {
+            throw new IllegalStateException("Pizza already released: " + pizza.getType());
+        }
+        entry.free = true;
+        pizza.reset();
+        if (Thread.currentThread().isVirtual()) {
+            pooled.remove(pizza); //its free list would die with the thread
+            return;
+        }
+        FreeLists lists = freeLists.get();
+        int slot = entry.slot;
+        int count = lists.counts[slot];
+        if (count < capacityPerType) {
+            Pooled[] free = lists.pizzas[slot];
+            if (free == null) { //per type arrays are created on first release only
+                free = lists.pizzas[slot] = new Pooled[capacityPerType];
+            }
+            free[count] = entry;
+            lists.counts[slot] = count + 1;
+        } else {
+            pooled.remove(pizza);
+        }
+    }
+
+    /**
+     * Stop tracking a pizza which will never be released, e.g. its order failed
+     */
+    void discard(Pizza pizza) {
+        pooled.remove(pizza);
+    }
+
+    /**
+     * @return pizzas created by the pool which are free or handed out
+     */
+    int tracked() {
+        return pooled.size();
+    }
+
+    private static final class Pooled {
+        private final Pizza pizza;
+        private final int slot;
+        private boolean free; //a pizza has one owner at a time, the handover publishes it
+
+        private Pooled(Pizza pizza, int slot) {
+            this.pizza = pizza;
+            this.slot = slot;
+        }
+    }
+
+    private static final class FreeLists {
+        private final Pooled[][] pizzas;
+        private final int[] counts;
+
+        private FreeLists(int slots) {
+            this.pizzas = new Pooled[slots][];
+            this.counts = new int[slots];
+        }
+    }
+}
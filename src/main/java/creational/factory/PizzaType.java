@@ -0,0 +1,23 @@
+package creational.factory;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a Pizza subclass on the menu of a store. At build time the annotation processor in
+ * ../processor generates a &lt;Store&gt;PizzaTypes class with a switch of direct new calls per type,
+ * e.g. @PizzaType(store = "pune", name = "tandoori") ends up in PunePizzaTypes.create("tandoori")
+ * Nothing of it is left at runtime, no reflection or classpath scanning
+ *
+ * The class needs a no-arg constructor accessible from its package
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+@interface PizzaType {
+
+    String store();
+
+    String name();
+}
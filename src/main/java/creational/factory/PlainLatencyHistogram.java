@@ -0,0 +1,25 @@
+package creational.factory;
+
+/**
+ * LatencyHistogram for one recording thread, e.g. a simulated store: the same buckets in plain
+ * counters, no atomics and no stripes, up to four times smaller than the striped one
+ * Not thread safe, hand it over with a happens-before (join, Future.get) to read or add it
+ */
+final class PlainLatencyHistogram {
+
+    private final long[] counts = new long[LatencyHistogram.BUCKETS];
+
+    void record(long nanos) {
+        counts[LatencyHistogram.bucketOf(Math.max(nanos, 0))]++;
+    }
+
+    void add(PlainLatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    LatencySnapshot snapshot() {
+        return LatencyHistogram.snapshotOf(counts);
+    }
+}
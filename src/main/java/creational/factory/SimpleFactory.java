@@ -1,5 +1,11 @@
 package creational.factory;
 
+import creational.EventSinks;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * The simple factory isn't actually a Design pattern, it is more of a programming idiom
  * It simply used to decouple clients from concrete classes
@@ -11,25 +17,131 @@ public class SimpleFactory {
         PizzaStore pizzaStore = new PizzaStore(storeFactory);
 
         Pizza pizza = pizzaStore.orderPizza("cheese");
-        System.out.println(pizza.getType() +" pizza for you");
+        EventSinks.current().emit(pizza.getType() + " pizza for you");
     }
 }
 
 class PizzaStore {
     private final PizzaStoreFactory factory;
+    private final OrderPipeline orders; //admission, pooling, metrics, journal, kitchen
 
     public PizzaStore(PizzaStoreFactory factory) {
         this.factory = factory;
+        this.orders = new OrderPipeline(factory::getPizza, factory::menu);
     }
 
+    /**
+     * @throws OrderRejectedException if admission control is enabled and the store is at its limit
+     */
     public Pizza orderPizza(String type) {
-        Pizza pizza = factory.getPizza(type); //Encapsulating object creation
+        return orders.order(type); //factory creates the pizza, the pipeline runs the lifecycle
+    }
+
+    /**
+     * Order without blocking the caller, by default every order runs on its own virtual thread
+     *
+     * @param type of pizza
+     * @return future completed with the boxed pizza, or exceptionally e.g. for unknown type or with an
+     * OrderRejectedException, admission happens before the order is queued on the executor
+     */
+    public CompletableFuture<Pizza> orderPizzaAsync(String type) {
+        return orders.orderAsync(type);
+    }
+
+    /**
+     * Cook a batch of orders in the kitchen pipeline, stages of different orders overlap
+     * Admission, metrics and journal apply to every order of the batch as to single orders
+     *
+     * @param types of pizza, one per order
+     * @return pizzas in the order of types
+     * @throws OrderRejectedException if admission control is enabled and the whole batch does not fit its limit
+     */
+    public List<Pizza> orderPizzas(List<String> types) throws InterruptedException {
+        return orders.orderBatch(types);
+    }
+
+    /**
+     * Delivery of the pizza is complete, in pooled mode it is recycled and must not be used any more
+     */
+    public void deliver(Pizza pizza) {
+        orders.deliver(pizza);
+    }
+
+    /**
+     * Opt-in pooled mode, orderPizza hands out recycled pizzas which callers give back with deliver(pizza)
+     * Enable before the store is shared between threads
+     *
+     * @param capacityPerType pizzas kept per type and thread
+     */
+    public PizzaStore enablePooling(int capacityPerType) {
+        orders.enablePooling(capacityPerType);
+        return this;
+    }
+
+    /**
+     * Record every completed order in the journal, OrderJournal.replay feeds them to a store again
+     * Enable before the store is shared between threads
+     */
+    public PizzaStore enableJournal(OrderJournal journal) {
+        orders.enableJournal(journal);
+        return this;
+    }
+
+    /**
+     * Admit or reject every order on arrival, orderPizza throws and orderPizzaAsync fails fast with an
+     * OrderRejectedException once a limit is hit. Enable before the store is shared between threads
+     */
+    public PizzaStore enableAdmission(AdmissionControl admission) {
+        orders.enableAdmission(admission);
+        return this;
+    }
+
+    /**
+     * Count orders and time every lifecycle stage per pizza type, published over JMX
+     * Enable before the store is shared between threads
+     *
+     * @param storeName identifies the store in the JMX object names, unique among stores with metrics enabled
+     * @throws IllegalStateException if another store publishes metrics under the name
+     */
+    public PizzaStore enableMetrics(String storeName) {
+        orders.enableMetrics(storeName);
+        return this;
+    }
+
+    /**
+     * Stop recording metrics and unregister them from JMX, so the store name can be used again
+     */
+    public PizzaStore disableMetrics() {
+        orders.disableMetrics();
+        return this;
+    }
+
+    /**
+     * Replace the executor used by orderPizzaAsync, e.g. a bounded pool. Set before the store is shared
+     */
+    public PizzaStore orderExecutor(Executor executor) {
+        orders.orderExecutor(executor);
+        return this;
+    }
+
+    /**
+     * Opt-in boot time initialisation: load and initialise now what the first order would otherwise
+     * pay for, the event sink and every pizza class on the menu. Trades boot time for first order latency
+     */
+    public PizzaStore preInitialize() {
+        orders.preInitialize();
+        return this;
+    }
 
-        pizza.prepare();
-        pizza.bake();
-        pizza.cut();
-        pizza.box();
-        return pizza;
+    OrderMetrics metrics() {
+        return orders.metrics();
+    }
+
+    /**
+     * @return kitchen used by orderPizzas, to tune stage parallelism or read its report
+     */
+    Kitchen kitchen() {
+        return orders.kitchen();
     }
 }
 
@@ -40,23 +152,30 @@ abstract class Pizza {
     public abstract String getType();
 
     public void bake() {
-        System.out.println("Bake for 25 minutes at 350");
+        EventSinks.current().emit("Bake for 25 minutes at 350");
     }
 
     public void cut() {
-        System.out.println("Cutting the pizza into diagonal slices");
+        EventSinks.current().emit("Cutting the pizza into diagonal slices");
     }
 
     public void box() {
-        System.out.println("place Pizza in official PizzaStore box");
+        EventSinks.current().emit("place Pizza in official PizzaStore box");
+    }
+
+    /**
+     * Called when a pooled pizza is returned, clear any per-order state before it is handed out again
+     */
+    protected void reset() {
     }
 }
 
+@PizzaType(store = "simple", name = "cheese")
 class CheezePizza extends Pizza {
 
     @Override
     public void prepare() {
-        System.out.println("Preparing Cheese Pizza");
+        EventSinks.current().emit("Preparing Cheese Pizza");
     }
 
     @Override
@@ -65,11 +184,12 @@ class CheezePizza extends Pizza {
     }
 }
 
+@PizzaType(store = "simple", name = "tandoori")
 class IndianTandoori extends Pizza {
 
     @Override
     public void prepare() {
-        System.out.println("Preparing Indian Tandoori");
+        EventSinks.current().emit("Preparing Indian Tandoori");
     }
 
     @Override
@@ -78,11 +198,12 @@ class IndianTandoori extends Pizza {
     }
 }
 
+@PizzaType(store = "simple", name = "extravaganza")
 class VegExtravaganza extends Pizza {
 
     @Override
     public void prepare() {
-        System.out.println("Preparing Veg Extravaganza");
+        EventSinks.current().emit("Preparing Veg Extravaganza");
     }
 
     @Override
@@ -98,16 +219,13 @@ class PizzaStoreFactory {
      *
      * @param type of pizza
      * @return Pizza actual instance based on type
+     * @throws IllegalArgumentException if the type is not on the menu
      */
     public Pizza getPizza(String type) { //this can be a static method
-        Pizza pizza = null;
-        if (type.equals("cheese")) {
-            pizza = new CheezePizza();
-        } else if (type.equals("extravaganza")) {
-            pizza = new VegExtravaganza();
-        } else if (type.equals("tandoori")) {
-            pizza = new IndianTandoori();
-        }
-        return pizza;
+        return SimplePizzaTypes.create(type); //generated from the @PizzaType(store = "simple") classes
+    }
+
+    PizzaMenu menu() {
+        return SimplePizzaTypes.menu();
     }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package creational.factory;
+
+/**
+ * JMX view of the orders of one store over all pizza types, registered as
+ * creational.factory:type=StoreMetrics,store=&lt;store&gt;
+ */
+public interface StoreMetricsMXBean {
+
+    long getOrders(); //completed orders
+
+    long getRejected(); //orders failing in getPizza, e.g. unknown type
+
+    long getFailed(); //orders failing in a lifecycle stage
+}
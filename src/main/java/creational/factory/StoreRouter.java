@@ -0,0 +1,269 @@
+package creational.factory;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Shards orders over several store instances, each with its own worker thread and order queue, so
+ * every store stays a serial order path. The routing picks the shard of an order; a worker with an
+ * empty queue steals the oldest waiting order of another shard and cooks it in its own store, so a
+ * burst of slow orders on one shard is spread over idle cores instead of queueing behind each other
+ *
+ * Idle workers park until an order wakes them: the worker of the shard it is routed to and, with
+ * stealing, one idle thief when that worker is busy. An idle router costs no CPU
+ */
+final class StoreRouter implements AutoCloseable {
+
+    private final Shard[] shards;
+    private final Routing routing;
+    private final boolean stealing;
+    private final LongAdder stolen = new LongAdder();
+    private volatile boolean running = true;
+
+    /**
+     * @param shardCount stores, one worker thread each, e.g. one per core
+     * @param stores     creates the order path of one shard, e.g. {@code () -> new PunePizzaStore()::orderPizza}
+     * @param stealing   false keeps every order on the shard it was routed to
+     */
+    StoreRouter(int shardCount, Supplier<Function<String, Pizza>> stores, Routing routing, boolean stealing) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        this.routing = Objects.requireNonNull(routing, "routing");
+        this.stealing = stealing;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, stores.get());
+        }
+        for (Shard shard : shards) {
+            shard.worker.start();
+        }
+    }
+
+    StoreRouter(int shardCount, Supplier<Function<String, Pizza>> stores, Routing routing) {
+        this(shardCount, stores, routing, true);
+    }
+
+    /**
+     * @return future completed with the boxed pizza, or exceptionally e.g. for unknown type
+     * @throws IllegalStateException if the router is closed
+     */
+    CompletableFuture<Pizza> order(String type) {
+        if (!running) {
+            throw new IllegalStateException("router is closed");
+        }
+        int index = routing.shardFor(type, this);
+        if (index < 0 || index >= shards.length) {
+            throw new IllegalStateException("routing returned shard " + index + " of " + shards.length);
+        }
+        Shard shard = shards[index];
+        Order order = new Order(type, shard);
+        shard.pending.incrementAndGet();
+        shard.queue.offerLast(order);
+        boolean idle = shard.idle;
+        if (idle) {
+            LockSupport.unpark(shard.worker);
+        }
+        if (stealing && (!idle || shard.pending.get() > 1)) {
+            wakeThief(shard); //the shard is busy or about to be, the order need not wait for it
+        }
+        //closed meanwhile: the workers may be gone already, take the order back unless one picked it up
+        if (!running && shard.queue.removeFirstOccurrence(order)) {
+            shard.pending.decrementAndGet();
+            throw new IllegalStateException("router is closed");
+        }
+        return order.pizza;
+    }
+
+    int shards() {
+        return shards.length;
+    }
+
+    /**
+     * @return orders routed to the shard and not yet picked up, by its worker or a thief
+     */
+    int pending(int shard) {
+        return shards[shard].pending.get();
+    }
+
+    /**
+     * @return orders cooked by the worker of the shard, stolen ones included
+     */
+    long cooked(int shard) {
+        return shards[shard].cooked.sum();
+    }
+
+    long stolen() {
+        return stolen.sum();
+    }
+
+    /**
+     * Stop the workers once every order placed so far is cooked
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.worker);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void work(Shard shard) {
+        while (true) {
+            Order order = next(shard);
+            if (order == null) {
+                shard.idle = true; //from here on order() wakes this worker
+                order = next(shard); //routed before the flag was visible
+                if (order == null) {
+                    if (!running && isDrained(shard)) {
+                        return;
+                    }
+                    if (running) {
+                        LockSupport.park(this); //close() unparks too
+                    }
+                }
+                shard.idle = false;
+            }
+            if (order != null) {
+                order.shard.pending.decrementAndGet();
+                cook(shard, order);
+            }
+        }
+    }
+
+    private Order next(Shard shard) {
+        Order order = shard.queue.pollFirst();
+        return order == null && stealing ? steal(shard) : order;
+    }
+
+    private void wakeThief(Shard victim) {
+        for (Shard shard : shards) {
+            if (shard != victim && shard.idle) {
+                LockSupport.unpark(shard.worker);
+                return;
+            }
+        }
+    }
+
+    private Order steal(Shard thief) {
+        int start = ThreadLocalRandom.current().nextInt(shards.length); //spread thieves over victims
+        for (int i = 0; i < shards.length; i++) {
+            Shard victim = shards[(start + i) % shards.length];
+            if (victim != thief && victim.pending.get() > 0) {
+                Order order = victim.queue.pollFirst(); //oldest first, it has waited the longest
+                if (order != null) {
+                    stolen.increment();
+                    if (victim.pending.get() > 1) {
+                        wakeThief(victim); //more left behind the busy worker, spread them further
+                    }
+                    return order;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void cook(Shard shard, Order order) {
+        try {
+            order.pizza.complete(shard.store.apply(order.type));
+        } catch (Throwable e) { //Errors too, a dead worker would leave this and every later order of the shard pending
+            order.pizza.completeExceptionally(e);
+        } finally {
+            shard.cooked.increment();
+        }
+    }
+
+    //without stealing a worker only ever cooks the orders of its own shard
+    private boolean isDrained(Shard shard) {
+        if (!stealing) {
+            return shard.queue.isEmpty();
+        }
+        for (Shard other : shards) {
+            if (!other.queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Picks the shard of an order
+     */
+    @FunctionalInterface
+    interface Routing {
+
+        /**
+         * @return shard in [0, router.shards())
+         */
+        int shardFor(String type, StoreRouter router);
+
+        /**
+         * Same type, same shard: each store keeps its few pizza classes and ingredients hot in its core's cache
+         */
+        static Routing hashByType() {
+            return (type, router) -> {
+                int hash = type.hashCode() * 0x9E3779B9; //spread, similar types differ in the last chars
+                return (int) (((hash >>> 16) * (long) router.shards()) >>> 16);
+            };
+        }
+
+        /**
+         * Shard with the fewest orders waiting, ties go to the lowest shard
+         */
+        static Routing leastLoaded() {
+            return (type, router) -> {
+                int best = 0;
+                int fewest = Integer.MAX_VALUE;
+                for (int i = 0; i < router.shards() && fewest > 0; i++) {
+                    int pending = router.pending(i);
+                    if (pending < fewest) {
+                        fewest = pending;
+                        best = i;
+                    }
+                }
+                return best;
+            };
+        }
+    }
+
+    private final class Shard {
+        private final Function<String, Pizza> store;
+        private final ConcurrentLinkedDeque<Order> queue = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final LongAdder cooked = new LongAdder();
+        private final Thread worker;
+        private volatile boolean idle; //the worker found no order and parks, or is about to
+
+        private Shard(int index, Function<String, Pizza> store) {
+            this.store = Objects.requireNonNull(store, "store");
+            this.worker = new Thread(() -> work(this), "store-shard-" + index);
+            worker.setDaemon(true);
+        }
+    }
+
+    private static final class Order {
+        private final String type;
+        private final Shard shard; //routed to, not necessarily the one cooking it
+        private final CompletableFuture<Pizza> pizza = new CompletableFuture<>();
+
+        private Order(String type, Shard shard) {
+            this.type = type;
+            this.shard = shard;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package creational;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LazyTest {
+
+    @Test
+    @DisplayName("should create value on first get only")
+    void testLazyCreation() {
+        AtomicInteger calls = new AtomicInteger();
+        Lazy<Object> lazy = Lazy.of(() -> {
+            calls.incrementAndGet();
+            return new Object();
+        });
+
+        assertFalse(lazy.isInitialized());
+        Object first = lazy.get();
+        assertTrue(lazy.isInitialized());
+        assertSame(first, lazy.get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("should retry creation when supplier fails")
+    void testSupplierFailure() {
+        AtomicInteger calls = new AtomicInteger();
+        Lazy<String> lazy = Lazy.of(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("boom");
+            }
+            return "ok";
+        });
+
+        assertThrows(IllegalStateException.class, lazy::get);
+        assertFalse(lazy.isInitialized());
+        assertEquals("ok", lazy.get());
+    }
+
+    @Test
+    @DisplayName("should reject null value")
+    void testNullValue() {
+        assertThrows(NullPointerException.class, () -> Lazy.of(() -> null).get());
+        assertThrows(NullPointerException.class, () -> Lazy.racy(() -> null).get());
+    }
+
+    @Test
+    @DisplayName("should call supplier once and publish single instance across threads")
+    void testOnceMultiThreading() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Lazy<Object> lazy = Lazy.of(() -> {
+            calls.incrementAndGet();
+            return new Object();
+        });
+
+        assertSingleInstance(lazy);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("racy lazy should publish single instance across threads")
+    void testRacyMultiThreading() throws Exception {
+        assertSingleInstance(Lazy.racy(Object::new));
+    }
+
+    private static void assertSingleInstance(Lazy<Object> lazy) throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?>[] results = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                results[i] = executor.submit(() -> {
+                    start.await();
+                    return lazy.get();
+                });
+            }
+            start.countDown();
+            Object expected = results[0].get();
+            for (Future<?> result : results) {
+                assertSame(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package creational;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultitonTest {
+
+    @Test
+    @DisplayName("should return one instance per key")
+    void testInstancePerKey() {
+        Multiton<String, Object> multiton = Multiton.of(key -> new Object());
+
+        assertSame(multiton.getInstance("Delhi"), multiton.getInstance("Delhi"));
+        assertNotSame(multiton.getInstance("Delhi"), multiton.getInstance("Mumbai"));
+        assertEquals(2, multiton.size());
+    }
+
+    @Test
+    @DisplayName("slow creation of one key should not block other keys")
+    void testPerKeyInitialization() throws Exception {
+        CountDownLatch delhiStarted = new CountDownLatch(1);
+        CountDownLatch releaseDelhi = new CountDownLatch(1);
+        Multiton<String, String> multiton = Multiton.of(key -> {
+            if (key.equals("Delhi")) {
+                delhiStarted.countDown();
+                try {
+                    releaseDelhi.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return key + " factory";
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> delhi = executor.submit(() -> multiton.getInstance("Delhi"));
+            assertTrue(delhiStarted.await(5, TimeUnit.SECONDS));
+
+            assertEquals("Mumbai factory", multiton.getInstance("Mumbai")); //Delhi is still being created
+            assertFalse(delhi.isDone());
+
+            releaseDelhi.countDown();
+            assertEquals("Delhi factory", delhi.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("bounded multiton should evict unused keys first")
+    void testBoundedEviction() {
+        List<Object> evicted = new ArrayList<>();
+        Multiton<Integer, Object> multiton = Multiton.bounded(key -> "instance-" + key, 2, evicted::add);
+
+        multiton.getInstance(1);
+        multiton.getInstance(2);
+        multiton.getInstance(1); //1 is used again, 2 is not
+        multiton.getInstance(3);
+
+        assertEquals(2, multiton.size());
+        assertTrue(multiton.contains(1));
+        assertFalse(multiton.contains(2));
+        assertEquals(List.of("instance-2"), evicted);
+    }
+
+    @Test
+    @DisplayName("bounded multiton should evict an instance created after its key was evicted")
+    void testEvictionDuringCreation() throws Exception {
+        List<Object> evicted = new ArrayList<>();
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Multiton<Integer, Object> multiton = Multiton.bounded(key -> {
+            if (key == 1) {
+                creating.countDown();
+                await(release);
+            }
+            return "instance-" + key;
+        }, 1, evicted::add);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> first = executor.submit(() -> multiton.getInstance(1));
+            assertTrue(creating.await(5, TimeUnit.SECONDS));
+
+            multiton.getInstance(2); //evicts 1 while it is still being created
+            assertFalse(multiton.contains(1));
+            assertTrue(evicted.isEmpty());
+
+            release.countDown();
+            assertEquals("instance-1", first.get(5, TimeUnit.SECONDS));
+            assertEquals(List.of("instance-1"), evicted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package creational;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Races threads on the first getInstance() of a singleton, without sleeping
+ * Every round loads a fresh copy of Singleton and its nested classes in its own class loader,
+ * so the static instance starts out null each time and a round costs well under a millisecond
+ * All threads are released together from a barrier, optionally a RacePoint barrier also holds
+ * them inside the unsafe window until every thread got there
+ */
+final class RaceHarness implements AutoCloseable {
+
+    private static final String SINGLETON = "creational.Singleton";
+    private static final Map<String, byte[]> BYTECODE = new ConcurrentHashMap<>();
+
+    private final int threads;
+    private final ExecutorService executor;
+
+    RaceHarness(int threads) {
+        if (threads < 2) {
+            throw new IllegalArgumentException("a race needs at least 2 threads: " + threads);
+        }
+        this.threads = threads;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * @param singleton  nested class of Singleton with a static getInstance()
+     * @param holdWindow hold every thread at the class' racePoint, which it must have
+     * @return threads that entered the unsafe window and instances handed out over one round
+     */
+    Round race(Class<?> singleton, boolean holdWindow) throws InterruptedException {
+        Class<?> fresh = freshCopyOf(singleton);
+        Method getInstance = method(fresh);
+        AtomicInteger entered = new AtomicInteger();
+        if (holdWindow) {
+            CyclicBarrier window = new CyclicBarrier(threads);
+            setRacePoint(fresh, () -> {
+                entered.incrementAndGet();
+                await(window);
+            });
+        }
+        CyclicBarrier start = new CyclicBarrier(threads);
+        List<Future<Object>> results = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                await(start);
+                return getInstance.invoke(null);
+            }));
+        }
+        Set<Object> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Future<Object> result : results) {
+            try {
+                instances.add(result.get(10, TimeUnit.SECONDS)); //only reached on a harness bug
+            } catch (ExecutionException | TimeoutException e) {
+                throw new IllegalStateException("round of " + singleton.getSimpleName() + " failed", e);
+            }
+        }
+        return new Round(entered.get(), instances.size());
+    }
+
+    /**
+     * @return the highest number of distinct instances handed out in any round
+     */
+    int race(Class<?> singleton, boolean holdWindow, int rounds) throws InterruptedException {
+        int most = 0;
+        for (int i = 0; i < rounds; i++) {
+            most = Math.max(most, race(singleton, holdWindow).handedOut());
+        }
+        return most;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static Class<?> freshCopyOf(Class<?> singleton) {
+        if (!singleton.getName().startsWith(SINGLETON + "$")) {
+            throw new IllegalArgumentException("not nested in Singleton: " + singleton.getName());
+        }
+        try {
+            return Class.forName(singleton.getName(), true, new IsolatingClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Method method(Class<?> singleton) {
+        try {
+            Method getInstance = singleton.getMethod("getInstance");
+            getInstance.setAccessible(true);
+            return getInstance;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(singleton.getName() + " has no getInstance()", e);
+        }
+    }
+
+    private static void setRacePoint(Class<?> singleton, RacePoint racePoint) {
+        try {
+            Field field = singleton.getDeclaredField("racePoint");
+            field.setAccessible(true);
+            field.set(null, racePoint);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalArgumentException(singleton.getName() + " has no racePoint", e);
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) throws InterruptedException {
+        try {
+            barrier.await();
+        } catch (BrokenBarrierException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Outcome of one round. Every thread past the racePoint constructs exactly one instance, but
+     * getInstance() returns the static field, read again after the assignment, so a thread may hand
+     * out the instance another thread assigned after it: handedOut is anywhere from 1 to entered
+     */
+    static final class Round {
+        private final int entered;
+        private final int handedOut;
+
+        private Round(int entered, int handedOut) {
+            this.entered = entered;
+            this.handedOut = handedOut;
+        }
+
+        /**
+         * @return threads held in the unsafe window, which is the number of instances created
+         */
+        int entered() {
+            return entered;
+        }
+
+        /**
+         * @return distinct instances getInstance() returned
+         */
+        int handedOut() {
+            return handedOut;
+        }
+    }
+
+    /**
+     * Defines Singleton and its nested classes itself, anything else, RacePoint included, comes
+     * from the parent so that the harness and the fresh copy share those types
+     */
+    private static final class IsolatingClassLoader extends ClassLoader {
+
+        private IsolatingClassLoader() {
+            super(RaceHarness.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(SINGLETON) && !name.startsWith(SINGLETON + "$")) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    byte[] bytes = BYTECODE.computeIfAbsent(name, IsolatingClassLoader::read);
+                    loaded = defineClass(name, bytes, 0, bytes.length);
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+
+        private static byte[] read(String name) {
+            String resource = name.replace('.', '/') + ".class";
+            try (InputStream in = RaceHarness.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IllegalStateException("no class file for " + name);
+                }
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package creational;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RingBufferEventSinkTest {
+
+    @Test
+    @DisplayName("should write every event in order on close")
+    void testWriteInOrder() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RingBufferEventSink sink = new RingBufferEventSink(out, 16);
+
+        sink.emit("Preparing Cheese Pizza");
+        sink.emit("Bake for 25 minutes at 350");
+        sink.close();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertArrayEquals(new String[]{"Preparing Cheese Pizza", "Bake for 25 minutes at 350"}, lines);
+    }
+
+    @Test
+    @DisplayName("should not lose events of concurrent producers unless buffer is full")
+    void testConcurrentProducers() throws InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RingBufferEventSink sink = new RingBufferEventSink(out, 1024);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int producer = t;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    sink.emit(producer + "-" + i);
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        sink.close();
+
+        long written = out.toString(StandardCharsets.UTF_8).lines().count();
+        assertEquals(40_000, written + sink.dropped());
+    }
+
+    @Test
+    @DisplayName("idle writer should park until the next event")
+    void testIdleWriterParks() throws InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RingBufferEventSink sink = new RingBufferEventSink(out, 16);
+        try {
+            awaitParked(sink);
+            sink.emit("Preparing Cheese Pizza");
+            while (out.size() == 0) { //written without close, so the producer woke the writer
+                Thread.sleep(1);
+            }
+            awaitParked(sink);
+        } finally {
+            sink.close();
+        }
+        assertEquals("Preparing Cheese Pizza" + System.lineSeparator(), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("should report a failed output on close and count the lost events")
+    void testFailedOutput() throws InterruptedException {
+        IOException broken = new IOException("disk full");
+        RingBufferEventSink sink = new RingBufferEventSink(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw broken;
+            }
+        }, 16);
+
+        sink.emit("Preparing Cheese Pizza"); //buffered, fails on flush
+        while (sink.failure() == null) {
+            Thread.sleep(1);
+        }
+        sink.emit("Bake for 25 minutes at 350");
+        UncheckedIOException failure = assertThrows(UncheckedIOException.class, sink::close);
+
+        assertSame(broken, failure.getCause());
+        assertSame(broken, sink.failure());
+        assertEquals(1, sink.dropped());
+    }
+
+    //a writer which polled would show TIMED_WAITING
+    private static void awaitParked(RingBufferEventSink sink) throws InterruptedException {
+        while (sink.writerState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+    }
+}
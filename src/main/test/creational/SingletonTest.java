@@ -5,6 +5,11 @@ import org.junit.jupiter.api.*;
 import java.io.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -69,28 +74,65 @@ public class SingletonTest {
     @Test
     @DisplayName("should break singleton in multi-threaded environment")
     void testSingletonMultiThreading() throws InterruptedException {
-        AtomicReference<Singleton.LazySingleton> instance1 = new AtomicReference<>();
-        AtomicReference<Singleton.LazySingleton> instance2 = new AtomicReference<>();
-        Thread t1 = new Thread(() -> {
-            try {
-                instance1.set(Singleton.LazySingleton.getInstance());
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }, "Thread-1");
-        Thread t2 = new Thread(() -> {
-            try {
-                instance2.set(Singleton.LazySingleton.getInstance());
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+        try (RaceHarness harness = new RaceHarness(2)) {
+            //both threads are held past the null check, so both create an instance, every time
+            RaceHarness.Round round = harness.race(Singleton.LazySingleton.class, true);
+            assertEquals(2, round.entered(), "Singleton is not thread-safe: different instances created!");
+        }
+    }
+
+    @Nested
+    @DisplayName("Race harness")
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class RaceTest {
+
+        private static final int THREADS = 8;
+        private static final int ROUNDS = 2_000;
+
+        private RaceHarness harness;
+        private EventSink previous;
+
+        @BeforeAll
+        void setup() {
+            previous = EventSinks.current();
+            EventSinks.use(EventSink.NO_OP); //LazySingleton reports every thread entering the window
+            harness = new RaceHarness(THREADS);
+        }
+
+        @AfterAll
+        void tearDown() {
+            harness.close();
+            EventSinks.use(previous);
+        }
+
+        @Test
+        @DisplayName("lazy singleton creates one instance per thread held in the unsafe window")
+        void testLazySingletonRace() throws InterruptedException {
+            for (int i = 0; i < ROUNDS; i++) {
+                RaceHarness.Round round = harness.race(Singleton.LazySingleton.class, true);
+                assertEquals(THREADS, round.entered());
+                //threads return whichever instance was assigned last when they read the field again
+                assertTrue(round.handedOut() >= 1 && round.handedOut() <= THREADS, () -> round.handedOut() + " handed out");
             }
-        }, "Thread-2");
-        t1.start();
-        t2.start();
-        t1.join();
-        t2.join();
+        }
+
+        @Test
+        @DisplayName("thread safe singleton never publishes two instances")
+        void testThreadSafeSingleton() throws InterruptedException {
+            assertEquals(1, harness.race(Singleton.ThreadSafeSingleton.class, false, ROUNDS));
+        }
+
+        @Test
+        @DisplayName("double check lock singleton never publishes two instances")
+        void testDoubleCheckLockSingleton() throws InterruptedException {
+            assertEquals(1, harness.race(Singleton.DoubleCheckLockSingleton.class, false, ROUNDS));
+        }
 
-        assertNotSame(instance1.get(), instance2.get(), "Singleton is not thread-safe: different instances created!");
+        @Test
+        @DisplayName("Bill Pugh singleton never publishes two instances")
+        void testBillPughSingleton() throws InterruptedException {
+            assertEquals(1, harness.race(Singleton.BillPughSingleton.class, false, ROUNDS));
+        }
     }
 
     @Nested
@@ -149,6 +191,96 @@ public class SingletonTest {
         }
     }
 
+    @Nested
+    @DisplayName("Thread local singleton")
+    class ThreadLocalSingletonTest {
+
+        @Test
+        @DisplayName("should give every thread its own instance, also virtual threads")
+        void testPerThread() throws Exception {
+            Singleton.ThreadLocalSingleton instance = Singleton.ThreadLocalSingleton.getInstance();
+            AtomicReference<Singleton.ThreadLocalSingleton> other = new AtomicReference<>();
+            Thread virtual = Thread.ofVirtual().start(() -> other.set(Singleton.ThreadLocalSingleton.getInstance()));
+            virtual.join();
+
+            assertSame(instance, Singleton.ThreadLocalSingleton.getInstance());
+            assertNotNull(other.get());
+            assertNotSame(instance, other.get());
+        }
+
+        @Test
+        @DisplayName("should create a new instance after release")
+        void testRelease() {
+            Singleton.ThreadLocalSingleton instance = Singleton.ThreadLocalSingleton.getInstance();
+
+            Singleton.ThreadLocalSingleton.release();
+
+            assertNotSame(instance, Singleton.ThreadLocalSingleton.getInstance());
+            Singleton.ThreadLocalSingleton.release();
+        }
+    }
+
+    @Nested
+    @DisplayName("Scoped singleton")
+    class ScopedSingletonTest {
+
+        @Test
+        @DisplayName("should only be available inside a scope")
+        void testUnbound() {
+            assertFalse(Singleton.ScopedSingleton.isBound());
+            assertThrows(IllegalStateException.class, Singleton.ScopedSingleton::getInstance);
+        }
+
+        @Test
+        @DisplayName("should share one instance within a scope, nested scopes included")
+        void testNested() {
+            Singleton.ScopedSingleton.runScoped(() -> {
+                Singleton.ScopedSingleton outer = Singleton.ScopedSingleton.getInstance();
+                Singleton.ScopedSingleton inner = Singleton.ScopedSingleton.callScoped(Singleton.ScopedSingleton::getInstance);
+                assertSame(outer, inner);
+                assertSame(outer, Singleton.ScopedSingleton.getInstance());
+            });
+            assertFalse(Singleton.ScopedSingleton.isBound());
+        }
+
+        @Test
+        @DisplayName("should unbind when the scope throws and give every scope a new instance")
+        void testCleanup() {
+            Singleton.ScopedSingleton first = Singleton.ScopedSingleton.callScoped(Singleton.ScopedSingleton::getInstance);
+
+            assertThrows(IllegalArgumentException.class, () -> Singleton.ScopedSingleton.runScoped(() -> {
+                throw new IllegalArgumentException("order failed");
+            }));
+
+            assertFalse(Singleton.ScopedSingleton.isBound());
+            assertNotSame(first, Singleton.ScopedSingleton.callScoped(Singleton.ScopedSingleton::getInstance));
+        }
+
+        @Test
+        @DisplayName("should keep scopes of virtual threads apart")
+        void testVirtualThreads() throws InterruptedException {
+            Set<Singleton.ScopedSingleton> instances = ConcurrentHashMap.newKeySet();
+            CountDownLatch allInScope = new CountDownLatch(100);
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                threads.add(Thread.ofVirtual().start(() -> Singleton.ScopedSingleton.runScoped(() -> {
+                    instances.add(Singleton.ScopedSingleton.getInstance());
+                    allInScope.countDown();
+                    try {
+                        allInScope.await(); //all scopes open at once
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(100, instances.size());
+        }
+    }
+
     @Nested
     @DisplayName("Eager singleton")
     @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -0,0 +1,109 @@
+package creational;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SwappableTest {
+
+    @Test
+    @DisplayName("should hand out the instance published last")
+    void testSwap() {
+        Swappable<String> holder = Swappable.of("mumbai suppliers");
+
+        assertEquals("mumbai suppliers", holder.swap("new mumbai suppliers"));
+        assertEquals("new mumbai suppliers", holder.get());
+        assertThrows(NullPointerException.class, () -> holder.swap(null));
+    }
+
+    @Test
+    @DisplayName("should not retire an instance while a tracked reader holds it")
+    void testRetireAfterReaders() throws InterruptedException {
+        Swappable<Supplier> holder = Swappable.of(new Supplier());
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread reader = new Thread(() -> holder.read(supplier -> {
+            reading.countDown();
+            await(done);
+            return supplier.deliver(); //still open, however long the read takes
+        }));
+        reader.start();
+        reading.await();
+
+        AtomicReference<Supplier> retired = new AtomicReference<>();
+        Thread writer = new Thread(() -> holder.swapAndRetire(new Supplier(), old -> {
+            old.close();
+            retired.set(old);
+        }));
+        writer.start();
+        writer.join(100);
+
+        assertTrue(writer.isAlive());
+        assertNull(retired.get());
+        done.countDown();
+        writer.join();
+        reader.join();
+        assertNotNull(retired.get());
+        assertNotSame(retired.get(), holder.get());
+    }
+
+    @Test
+    @DisplayName("tracked readers should never see a retired instance under continuous swaps")
+    void testContinuousSwaps() throws InterruptedException {
+        Swappable<Supplier> holder = Swappable.of(new Supplier());
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger failures = new AtomicInteger();
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                while (running.get()) {
+                    try {
+                        holder.read(Supplier::deliver);
+                    } catch (IllegalStateException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            readers[i].start();
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            holder.swapAndRetire(new Supplier(), Supplier::close);
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(0, failures.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class Supplier {
+        private volatile boolean closed;
+
+        String deliver() {
+            if (closed) {
+                throw new IllegalStateException("supplier already retired");
+            }
+            return "cheese";
+        }
+
+        void close() {
+            closed = true;
+        }
+    }
+}
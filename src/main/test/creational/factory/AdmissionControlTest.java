@@ -0,0 +1,163 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AdmissionControlTest {
+
+    private EventSink previous;
+
+    @BeforeAll
+    void setup() {
+        previous = EventSinks.current();
+        EventSinks.use(EventSink.NO_OP);
+    }
+
+    @AfterAll
+    void tearDown() {
+        EventSinks.use(previous);
+    }
+
+    @Test
+    @DisplayName("should reject orders beyond the in-flight limit")
+    void testInFlightLimit() {
+        AdmissionControl admission = new AdmissionControl().maxInFlight(2);
+
+        long first = admission.admit();
+        admission.admit();
+        OrderRejectedException e = assertThrows(OrderRejectedException.class, admission::admit);
+
+        assertEquals(OrderRejectedException.Reason.IN_FLIGHT_LIMIT, e.reason());
+        assertEquals(0, e.getStackTrace().length);
+        admission.release(first, true);
+        assertDoesNotThrow(admission::admit);
+        assertEquals(3, admission.admitted());
+        assertEquals(1, admission.rejected());
+    }
+
+    @Test
+    @DisplayName("should admit a burst, then orders at the configured rate")
+    void testRateLimit() {
+        AdmissionControl admission = new AdmissionControl().rateLimit(1, 3); //next token in a second
+
+        for (int i = 0; i < 3; i++) {
+            admission.release(admission.admit(), true);
+        }
+        OrderRejectedException e = assertThrows(OrderRejectedException.class, admission::admit);
+
+        assertEquals(OrderRejectedException.Reason.RATE_LIMIT, e.reason());
+        assertEquals(0, admission.inFlight());
+    }
+
+    @Test
+    @DisplayName("should shrink the concurrency limit on slow orders and grow it on fast ones")
+    void testAdaptiveLimit() throws InterruptedException {
+        AdmissionControl admission = new AdmissionControl().adaptiveLimit(10, 2, 20, Duration.ofMillis(20));
+
+        long slow = admission.admit();
+        Thread.sleep(40);
+        admission.release(slow, true);
+        assertEquals(9, admission.limit());
+
+        for (int round = 0; round < 5; round++) {
+            long[] admitted = new long[admission.limit()];
+            for (int i = 0; i < admitted.length; i++) {
+                admitted[i] = admission.admit();
+            }
+            OrderRejectedException e = assertThrows(OrderRejectedException.class, admission::admit);
+            assertEquals(OrderRejectedException.Reason.CONCURRENCY_LIMIT, e.reason());
+            for (long order : admitted) {
+                admission.release(order, true); //well within the target latency
+            }
+        }
+        assertTrue(admission.limit() > 9);
+    }
+
+    @Test
+    @DisplayName("store should reject fast and typed when admission is at its limit")
+    void testStoreRejects() {
+        AdmissionControl admission = new AdmissionControl().maxInFlight(1);
+        PunePizzaStore store = new PunePizzaStore();
+        store.enableAdmission(admission);
+
+        long held = admission.admit(); //store is busy
+        assertThrows(OrderRejectedException.class, () -> store.orderPizza("cheese"));
+        CompletableFuture<Pizza> async = store.orderPizzaAsync("cheese");
+        CompletionException e = assertThrows(CompletionException.class, async::join);
+        assertInstanceOf(OrderRejectedException.class, e.getCause());
+        admission.release(held, true);
+
+        assertNotNull(store.orderPizza("cheese"));
+        assertNotNull(store.orderPizzaAsync("tandoori").join());
+        assertThrows(IllegalArgumentException.class, () -> store.orderPizza("hawaiian"));
+        assertEquals(0, admission.inFlight());
+    }
+
+    @Nested
+    @DisplayName("under overload")
+    class OverloadTest {
+
+        //4 cooks, 2 ms per order: capacity about 2000 orders/s
+        private static final int COOKS = 4;
+
+        private LoadGenerator generator() {
+            return new LoadGenerator(type -> {
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return null;
+            }).mix("cheese", 1).cooks(COOKS);
+        }
+
+        @Test
+        @DisplayName("should keep p99 of admitted orders bounded at 2x to 5x capacity")
+        void testInFlightLimitBoundsLatency() throws InterruptedException {
+            AdmissionControl admission = new AdmissionControl().maxInFlight(2 * COOKS);
+
+            for (LoadReport report : generator().admission(admission)
+                    .saturationCurve(new double[]{4_000, 10_000}, Duration.ofMillis(500))) {
+                assertTrue(report.rejected() > 0, report::toString);
+                assertTrue(report.achievedRate() > 1_000, report::toString);
+                //at most one order queued per cook
+                assertTrue(report.latency().getP99() < 10 * report.serviceTime().getP99(), report::toString);
+            }
+        }
+
+        @Test
+        @DisplayName("should keep p99 near the target latency with the adaptive limit")
+        void testAdaptiveLimitBoundsLatency() throws InterruptedException {
+            Duration target = Duration.ofMillis(10);
+            AdmissionControl admission = new AdmissionControl().adaptiveLimit(16, COOKS, 256, target);
+
+            for (LoadReport report : generator().admission(admission)
+                    .saturationCurve(new double[]{4_000, 10_000}, Duration.ofMillis(500))) {
+                assertTrue(report.rejected() > 0, report::toString);
+                assertTrue(report.latency().getP99() < 5 * target.toNanos(), report::toString);
+            }
+        }
+
+        @Test
+        @DisplayName("latency should grow without admission control")
+        void testUnbounded() throws InterruptedException {
+            LoadReport report = generator().run(4_000, Duration.ofMillis(500));
+
+            assertEquals(0, report.rejected());
+            assertTrue(report.latency().getP99() > 50 * report.serviceTime().getP99(), report::toString);
+        }
+    }
+}
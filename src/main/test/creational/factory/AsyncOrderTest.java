@@ -0,0 +1,59 @@
+package creational.factory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncOrderTest {
+
+    @Test
+    @DisplayName("should complete order on virtual thread by default")
+    void testVirtualThreadOrder() {
+        AtomicInteger virtualBakes = new AtomicInteger();
+        BasePizzaStore store = new BasePizzaStore() {
+            @Override
+            public Pizza getPizza(String type) {
+                return new CheezePizza() {
+                    @Override
+                    public void bake() {
+                        if (Thread.currentThread().isVirtual()) {
+                            virtualBakes.incrementAndGet();
+                        }
+                    }
+                };
+            }
+        };
+
+        Pizza pizza = store.orderPizzaAsync("cheese").join();
+
+        assertEquals("cheese", pizza.getType());
+        assertEquals(1, virtualBakes.get());
+    }
+
+    @Test
+    @DisplayName("should complete exceptionally on unknown pizza type")
+    void testUnknownType() {
+        CompletableFuture<Pizza> order = new PunePizzaStore().orderPizzaAsync("hawaiian");
+
+        CompletionException exception = assertThrows(CompletionException.class, order::join);
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+    }
+
+    @Test
+    @DisplayName("should run orders on pluggable executor")
+    void testCustomExecutor() {
+        AtomicInteger submitted = new AtomicInteger();
+        PizzaStore store = new PizzaStore(new PizzaStoreFactory()).orderExecutor(task -> {
+            submitted.incrementAndGet();
+            task.run();
+        });
+
+        assertEquals("tandoori", store.orderPizzaAsync("tandoori").join().getType());
+        assertEquals(1, submitted.get());
+    }
+}
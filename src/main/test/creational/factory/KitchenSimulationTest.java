@@ -0,0 +1,167 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class KitchenSimulationTest {
+
+    private static final long MINUTE = Duration.ofMinutes(1).toNanos();
+
+    private EventSink previous;
+
+    @BeforeAll
+    void setup() {
+        previous = EventSinks.current();
+        EventSinks.use(EventSink.NO_OP);
+    }
+
+    @AfterAll
+    void tearDown() {
+        EventSinks.use(previous);
+    }
+
+    @Test
+    @DisplayName("orders should take the sum of the stages when nobody waits")
+    void testNoWaiting() {
+        SimulationReport report = new KitchenSimulation()
+                .stage(Kitchen.Stage.PREPARE, Duration.ofMinutes(4), 100)
+                .stage(Kitchen.Stage.CUT, Duration.ofMinutes(1), 100)
+                .stage(Kitchen.Stage.BOX, Duration.ofMinutes(1), 100)
+                .ovenCapacity(100)
+                .store("quiet", 20)
+                .run();
+
+        StoreResult store = report.stores().get(0);
+        assertTrue(store.orders() > 150 && store.orders() < 350, store::toString); //about 20 an hour for 12 hours
+        for (Kitchen.Stage stage : Kitchen.Stage.values()) {
+            assertEquals(0, store.maxWaiting(stage));
+        }
+        //4 + 25 + 1 + 1 minutes, histogram buckets are at most 12.5% wide
+        assertTrue(store.latency().getP50() >= 31 * MINUTE && store.latency().getMax() <= 31 * MINUTE * 1.125);
+        assertTrue(store.closedAt() < Duration.ofHours(13).toNanos());
+    }
+
+    @Test
+    @DisplayName("orders should queue for the oven when it is the bottleneck")
+    void testOvenBottleneck() {
+        //12 pizzas per 25 minutes: capacity 28.8 orders an hour
+        SimulationReport report = new KitchenSimulation()
+                .stage(Kitchen.Stage.PREPARE, Duration.ofMinutes(4), 10)
+                .store("busy", 40)
+                .store("quiet", 10)
+                .run();
+
+        StoreResult busy = report.stores().get(0);
+        StoreResult quiet = report.stores().get(1);
+        assertTrue(busy.maxWaiting(Kitchen.Stage.BAKE) > 10, busy::toString);
+        assertTrue(busy.utilization(Kitchen.Stage.BAKE) > 0.9, busy::toString);
+        assertTrue(busy.latency().getP99() > 4 * quiet.latency().getP99());
+        assertTrue(busy.closedAt() > Duration.ofHours(15).toNanos(), busy::toString);
+        assertEquals(busy.orders() + quiet.orders(), report.orders());
+    }
+
+    @Test
+    @DisplayName("should run the lifecycle of the store's pizzas")
+    void testLifecycle() {
+        LongAdder baked = new LongAdder();
+        EventSinks.use(event -> {
+            if (event.startsWith("Bake")) {
+                baked.increment();
+            }
+        });
+        try {
+            SimulationReport report = new KitchenSimulation()
+                    .mix("cheese", 2)
+                    .mix("tandoori", 1)
+                    .store("pune", 20, new PunePizzaStore().enablePooling(4))
+                    .run();
+
+            assertEquals(report.orders(), baked.sum());
+        } finally {
+            EventSinks.use(EventSink.NO_OP);
+        }
+        KitchenSimulation unknown = new KitchenSimulation().mix("hawaiian", 1).store("pune", 20, new PunePizzaStore());
+        assertThrows(IllegalArgumentException.class, unknown::run);
+    }
+
+    @Test
+    @DisplayName("parallel run should give the same results as the single threaded one")
+    void testParallel() throws InterruptedException {
+        KitchenSimulation simulation = new KitchenSimulation().seed(7);
+        for (int i = 0; i < 40; i++) {
+            simulation.store("store-" + i, 10 + i);
+        }
+
+        SimulationReport single = simulation.run();
+        SimulationReport parallel = simulation.runParallel(4);
+
+        assertEquals(single.orders(), parallel.orders());
+        assertEquals(single.events(), parallel.events());
+        for (int i = 0; i < 40; i++) {
+            StoreResult expected = single.stores().get(i);
+            StoreResult actual = parallel.stores().get(i);
+            assertEquals(expected.name(), actual.name());
+            assertEquals(expected.orders(), actual.orders());
+            assertEquals(expected.closedAt(), actual.closedAt());
+            assertEquals(expected.latency().getP99(), actual.latency().getP99());
+            assertEquals(expected.maxWaiting(Kitchen.Stage.BAKE), actual.maxWaiting(Kitchen.Stage.BAKE));
+        }
+    }
+
+    @Nested
+    class EventSchedulerTest {
+
+        @Test
+        @DisplayName("should fire events in time order, same time in scheduling order")
+        void testOrder() {
+            EventScheduler scheduler = new EventScheduler();
+            List<String> fired = new ArrayList<>();
+            int handler = scheduler.register((data, now) -> {
+                fired.add(now + ":" + data);
+                if (data == 1) {
+                    scheduler.schedule(0, now + 5, 9); //events may schedule more events
+                }
+            });
+            for (int i = 0; i < 100; i++) {
+                scheduler.schedule(handler, 1_000 + i % 7, 100 + i);
+            }
+            scheduler.schedule(handler, 20, 2);
+            scheduler.schedule(handler, 10, 1);
+            scheduler.schedule(handler, 20, 3);
+
+            assertEquals(104, scheduler.run());
+            assertEquals(List.of("10:1", "15:9", "20:2", "20:3"), fired.subList(0, 4));
+            assertEquals("1000:100", fired.get(4));
+            assertEquals("1000:107", fired.get(5));
+            assertEquals("1006:197", fired.get(103));
+            assertEquals(1_006, scheduler.now());
+            assertEquals(0, scheduler.pending());
+        }
+
+        @Test
+        @DisplayName("should not schedule into the past")
+        void testPast() {
+            EventScheduler scheduler = new EventScheduler();
+            int handler = scheduler.register((data, now) -> {
+            });
+            scheduler.schedule(handler, 50, 0);
+            scheduler.run();
+
+            assertThrows(IllegalArgumentException.class, () -> scheduler.schedule(handler, 49, 0));
+        }
+    }
+}
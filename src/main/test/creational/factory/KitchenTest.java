@@ -0,0 +1,157 @@
+package creational.factory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KitchenTest {
+
+    @Test
+    @DisplayName("should cook every order of the batch in order")
+    void testBatchOrder() throws InterruptedException {
+        BasePizzaStore store = new BengaluruPizzaStore();
+        store.kitchen().parallelism(Kitchen.Stage.BAKE, 4).queueCapacity(2);
+        List<String> types = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            types.add(i % 2 == 0 ? "cheese" : "tandoori");
+        }
+
+        List<Pizza> pizzas = store.orderPizzas(types);
+
+        assertEquals(100, pizzas.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 0 ? "bengaluru cheese" : "bengaluru tandoori", pizzas.get(i).getType());
+        }
+        for (Kitchen.Stage stage : Kitchen.Stage.values()) {
+            assertEquals(100, store.kitchen().pizzas(stage));
+        }
+    }
+
+    @Test
+    @DisplayName("should fail batch with unknown pizza type")
+    void testUnknownType() {
+        PizzaStore store = new PizzaStore(new PizzaStoreFactory());
+
+        assertThrows(IllegalArgumentException.class, () -> store.orderPizzas(List.of("cheese", "hawaiian")));
+        assertEquals(1, store.kitchen().pizzas(Kitchen.Stage.BOX)); //cheese still made it through
+    }
+
+    @Test
+    @DisplayName("batch orders should go through admission and metrics like single orders")
+    void testBatchAdmissionAndMetrics() throws InterruptedException {
+        AdmissionControl admission = new AdmissionControl().maxInFlight(3);
+        BasePizzaStore store = new BengaluruPizzaStore().enableAdmission(admission).enableMetrics("kitchen-test-batch");
+        try {
+            store.orderPizzas(List.of("cheese", "cheese", "tandoori"));
+            assertThrows(OrderRejectedException.class, () -> store.orderPizzas(List.of("cheese", "cheese", "cheese", "cheese")));
+            assertThrows(IllegalArgumentException.class, () -> store.orderPizzas(List.of("cheese", "hawaiian")));
+
+            assertEquals(0, admission.inFlight());
+            assertEquals(5, admission.admitted());
+            OrderMetrics metrics = store.metrics();
+            assertEquals(2, metrics.metrics("cheese").getOrders());
+            assertEquals(3, metrics.metrics("cheese").getBakeLatency().getCount()); //the failed batch baked one too
+            assertEquals(1, metrics.metrics("tandoori").getBoxLatency().getCount());
+            assertEquals(1, metrics.rejected());
+        } finally {
+            store.disableMetrics();
+        }
+    }
+
+    @Test
+    @DisplayName("should fail the batch, not hang, when a stage throws an Error")
+    void testError() {
+        Kitchen kitchen = new Kitchen(type -> new CheezePizza() {
+            @Override
+            public void bake() {
+                throw new AssertionError("oven exploded");
+            }
+        });
+
+        AssertionError error = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(AssertionError.class, () -> kitchen.cook(List.of("cheese", "cheese"))));
+        assertEquals("oven exploded", error.getMessage());
+        assertEquals(2, kitchen.pizzas(Kitchen.Stage.BAKE));
+    }
+
+    @Test
+    @DisplayName("interrupting a batch should cancel its workers")
+    void testInterrupt() throws Exception {
+        CountDownLatch baking = new CountDownLatch(1);
+        CountDownLatch workerInterrupted = new CountDownLatch(1);
+        List<Pizza> discarded = Collections.synchronizedList(new ArrayList<>());
+        Kitchen kitchen = new Kitchen(type -> new CheezePizza() {
+            @Override
+            public void bake() {
+                baking.countDown();
+                try {
+                    new CountDownLatch(1).await(); //an oven which never finishes
+                } catch (InterruptedException e) {
+                    workerInterrupted.countDown();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, discarded::add);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread cook = new Thread(() -> {
+            try {
+                kitchen.cook(List.of("cheese"));
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+        cook.start();
+        assertTrue(baking.await(10, TimeUnit.SECONDS));
+
+        cook.interrupt();
+        cook.join(10_000);
+
+        assertInstanceOf(InterruptedException.class, thrown.get());
+        assertTrue(workerInterrupted.await(10, TimeUnit.SECONDS));
+        assertEquals(1, discarded.size()); //created for the batch, never handed out
+    }
+
+    @Test
+    @DisplayName("utilization should stay within 100% when batches overlap or parallelism changes")
+    void testConcurrentBatchUtilization() throws Exception {
+        Kitchen kitchen = new Kitchen(type -> new CheezePizza() {
+            @Override
+            public void bake() {
+                long until = System.nanoTime() + 200_000;
+                while (System.nanoTime() < until) {
+                    Thread.onSpinWait();
+                }
+            }
+        }).parallelism(Kitchen.Stage.BAKE, 2);
+        List<String> batch = Collections.nCopies(50, "cheese");
+        ExecutorService cooks = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Pizza>>> batches = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                batches.add(cooks.submit(() -> kitchen.cook(batch)));
+            }
+            for (Future<List<Pizza>> pizzas : batches) {
+                assertEquals(50, pizzas.get(30, TimeUnit.SECONDS).size());
+            }
+        } finally {
+            cooks.shutdown();
+        }
+
+        kitchen.parallelism(Kitchen.Stage.BAKE, 1); //for the next batches, not the ones which ran
+
+        double bake = kitchen.utilization(Kitchen.Stage.BAKE);
+        assertTrue(bake > 0 && bake <= 1, "bake utilization " + bake);
+    }
+}
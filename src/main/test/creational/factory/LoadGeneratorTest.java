@@ -0,0 +1,98 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class LoadGeneratorTest {
+
+    private EventSink previous;
+
+    @BeforeAll
+    void setup() {
+        previous = EventSinks.current();
+        EventSinks.use(EventSink.NO_OP);
+    }
+
+    @AfterAll
+    void tearDown() {
+        EventSinks.use(previous);
+    }
+
+    @Test
+    @DisplayName("should send orders at the target rate in the weighted type mix")
+    void testRateAndMix() throws InterruptedException {
+        PunePizzaStore store = new PunePizzaStore();
+        ConcurrentHashMap<String, LongAdder> sent = new ConcurrentHashMap<>();
+        LoadGenerator generator = new LoadGenerator(type -> {
+            sent.computeIfAbsent(type, t -> new LongAdder()).increment();
+            return store.orderPizza(type);
+        }).mix("cheese", 3).mix("tandoori", 1).cooks(2);
+
+        LoadReport report = generator.run(2_000, Duration.ofMillis(500));
+
+        assertEquals(1_000, report.sent());
+        assertEquals(1_000, report.latency().getCount());
+        assertEquals(0, report.failed());
+        assertTrue(sent.get("cheese").sum() > 2 * sent.get("tandoori").sum());
+    }
+
+    @Test
+    @DisplayName("should count orders the store rejects as failed")
+    void testFailures() throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(new PunePizzaStore()::orderPizza).mix("hawaiian", 1);
+
+        LoadReport report = generator.run(1_000, Duration.ofMillis(100));
+
+        assertEquals(report.sent(), report.failed());
+        assertEquals(0, report.latency().getCount()); //only completed orders have a latency
+        assertEquals(0, report.achievedRate());
+    }
+
+    @Test
+    @DisplayName("should count an Error as failed and give its admission back")
+    void testErrorReleasesAdmission() throws InterruptedException {
+        AdmissionControl admission = new AdmissionControl().maxInFlight(1);
+        LoadGenerator generator = new LoadGenerator(type -> {
+            throw new AssertionError("oven broke");
+        }).mix("cheese", 1).cooks(1).admission(admission);
+
+        LoadReport report = generator.run(100, Duration.ofMillis(100));
+
+        assertEquals(report.sent() - report.rejected(), report.failed());
+        assertEquals(0, admission.inFlight());
+    }
+
+    @Test
+    @DisplayName("should charge queueing to latency when the store cannot keep up")
+    void testNoCoordinatedOmission() throws InterruptedException {
+        //one cook, 2 ms per order: capacity 500 orders/s, sent at 1000 orders/s
+        LoadGenerator generator = new LoadGenerator(type -> {
+            long until = System.nanoTime() + 2_000_000;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+            return null;
+        }).mix("cheese", 1).cooks(1);
+
+        List<LoadReport> curve = generator.saturationCurve(new double[]{100, 1_000}, Duration.ofMillis(200));
+
+        LoadReport saturated = curve.get(1);
+        assertTrue(saturated.achievedRate() < 1_000);
+        assertTrue(saturated.latency().getP99() > 10 * saturated.serviceTime().getP99(),
+                "latency from intended send time must include the backlog: " + saturated);
+        assertTrue(curve.get(0).latency().getP50() < saturated.latency().getP50());
+    }
+}
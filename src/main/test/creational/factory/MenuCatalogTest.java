@@ -0,0 +1,129 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class MenuCatalogTest {
+
+    private static final String MENUS = "# region type class family\n"
+            + "delhi cheese creational.factory.DelhiCheesePizza delhi\n"
+            + "delhi  tandoori   creational.factory.PuneTandooriPizza -\n"
+            + "\n"
+            + "mumbai cheese creational.factory.MumbaiCheesePizza mumbai\n";
+
+    @TempDir
+    Path dir;
+
+    private EventSink previous;
+
+    @BeforeAll
+    void setup() {
+        previous = EventSinks.current();
+        EventSinks.use(EventSink.NO_OP);
+    }
+
+    @AfterAll
+    void tearDown() {
+        EventSinks.use(previous);
+    }
+
+    @Test
+    @DisplayName("should create the pizzas of a region from the compiled catalog")
+    void testCreate() throws IOException {
+        MenuCatalog catalog = compile(MENUS);
+
+        assertEquals(2, catalog.regions());
+        assertInstanceOf(DelhiCheesePizza.class, catalog.create("delhi", "cheese"));
+        assertInstanceOf(PuneTandooriPizza.class, catalog.create("delhi", "tandoori"));
+        assertInstanceOf(MumbaiCheesePizza.class, catalog.create("mumbai", "cheese"));
+        assertEquals("Unknown pizza type: tandoori",
+                assertThrows(IllegalArgumentException.class, () -> catalog.create("mumbai", "tandoori")).getMessage());
+    }
+
+    @Test
+    @DisplayName("should decode only the regions looked up")
+    void testLazyDecoding() throws IOException {
+        StringBuilder menus = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            menus.append("region-").append(i).append(" cheese creational.factory.PuneCheesePizza -\n");
+        }
+        MenuCatalog catalog = compile(menus.toString());
+
+        assertEquals(1_000, catalog.regions());
+        assertEquals(0, catalog.decodedRegions());
+        assertSame(catalog.menu("region-999"), catalog.menu("region-999"));
+        assertTrue(catalog.offers("region-0"));
+        assertFalse(catalog.offers("region-1000"));
+        assertThrows(IllegalArgumentException.class, () -> catalog.menu("region-1000"));
+        assertEquals(1, catalog.decodedRegions());
+    }
+
+    @Test
+    @DisplayName("delhi store should order from the catalog")
+    void testDelhiStore() throws IOException {
+        DelhiPizzaStoreFactory store = new DelhiPizzaStoreFactory(compile(MENUS));
+
+        assertEquals("delhi cheese pizza", store.orderPizza("cheese").getType());
+        assertThrows(IllegalArgumentException.class, () -> store.orderPizza("hawaiian"));
+        store.enablePooling(2).preInitialize();
+        assertThrows(IllegalArgumentException.class, () -> new CatalogPizzaStore(compile(MENUS), "pune"));
+    }
+
+    @Test
+    @DisplayName("should reject malformed catalogs")
+    void testMalformed() throws IOException {
+        IllegalArgumentException duplicate = assertThrows(IllegalArgumentException.class,
+                () -> compile(MENUS + "delhi cheese creational.factory.PuneCheesePizza -\n"));
+        assertEquals("line 6: delhi/cheese already defined on line 2", duplicate.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> compile("delhi cheese\n"));
+
+        MenuCatalog notAPizza = compile("delhi cheese creational.factory.Kitchen -\n");
+        assertThrows(IllegalStateException.class, () -> notAPizza.menu("delhi"));
+
+        Path text = dir.resolve("menus.txt");
+        Files.writeString(text, MENUS);
+        assertThrows(IllegalArgumentException.class, () -> MenuCatalog.open(text));
+    }
+
+    @Test
+    @DisplayName("should reject a corrupt header on open, not on a later lookup")
+    void testCorruptHeader() throws IOException {
+        compile(MENUS);
+        Path catalog = dir.resolve("menus.catalog");
+        byte[] valid = Files.readAllBytes(catalog);
+
+        assertCorrupt(catalog, valid, 12, 1 << 30); //region slots far beyond the file
+        assertCorrupt(catalog, valid, 16, MenuCatalog.HEADER_BYTES); //entries over the region table
+        assertCorrupt(catalog, valid, 16, valid.length); //entries after the strings
+        assertCorrupt(catalog, valid, 8, 1_000); //more regions than slots
+    }
+
+    private static void assertCorrupt(Path catalog, byte[] valid, int offset, int value) throws IOException {
+        ByteBuffer corrupt = ByteBuffer.wrap(valid.clone()).putInt(offset, value);
+        Files.write(catalog, corrupt.array());
+        assertEquals("Corrupt menu catalog header",
+                assertThrows(IllegalArgumentException.class, () -> MenuCatalog.open(catalog)).getMessage());
+    }
+
+    private MenuCatalog compile(String menus) throws IOException {
+        Path source = dir.resolve("menus.txt");
+        Path catalog = dir.resolve("menus.catalog");
+        Files.writeString(source, menus);
+        MenuCatalogCompiler.compile(source, catalog);
+        return MenuCatalog.open(catalog);
+    }
+}
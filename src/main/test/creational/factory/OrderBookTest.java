@@ -0,0 +1,56 @@
+package creational.factory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderBookTest {
+
+    @Test
+    @DisplayName("should track type, store and status of every order")
+    void testOrders() {
+        OrderBook book = new OrderBook();
+
+        int cheese = book.add("pune", "cheese", 10);
+        int tandoori = book.add("bengaluru", "tandoori", 20);
+        book.update(cheese, OrderBook.Status.BAKE, 30);
+
+        assertEquals(2, book.size());
+        assertEquals("cheese", book.type(cheese));
+        assertEquals("bengaluru", book.store(tandoori));
+        assertEquals(OrderBook.Status.BAKE, book.status(cheese));
+        assertEquals(OrderBook.Status.ORDERED, book.status(tandoori));
+        assertThrows(IndexOutOfBoundsException.class, () -> book.update(2, OrderBook.Status.BOX, 40));
+    }
+
+    @Test
+    @DisplayName("should count orders in a status by type across chunks")
+    void testCountByType() {
+        OrderBook book = new OrderBook().intern(PunePizzaTypes.menu());
+        for (int i = 0; i < 200_000; i++) { //several 64k chunks
+            int order = book.add("pune", i % 4 == 0 ? "tandoori" : "cheese", i);
+            if (i % 2 == 0) {
+                book.update(order, OrderBook.Status.BAKE, i);
+            }
+        }
+
+        assertEquals(Map.of("tandoori", 50_000L, "cheese", 50_000L), book.countByType(OrderBook.Status.BAKE));
+        assertEquals(50_000, book.countByTypeCode(OrderBook.Status.BAKE)[book.typeCode("tandoori")]);
+        assertEquals(100_000, book.countByStatus()[OrderBook.Status.ORDERED.ordinal()]);
+        assertEquals(-1, book.typeCode("hawaiian"));
+        assertEquals(4, book.footprintBytes() / (OrderBook.BYTES_PER_ORDER * 65_536L)); //200k orders fill 4 chunks
+    }
+
+    @Test
+    @DisplayName("should give menu types their codes before the first order")
+    void testInternMenu() {
+        OrderBook book = new OrderBook().intern(PunePizzaTypes.menu());
+
+        assertTrue(book.typeCode("extravaganza") >= 0);
+        assertEquals("extravaganza", book.typeOf(book.typeCode("extravaganza")));
+        assertEquals(0, book.oldestNanos(OrderBook.Status.BAKE, 100));
+    }
+}
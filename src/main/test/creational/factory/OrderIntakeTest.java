@@ -0,0 +1,137 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class OrderIntakeTest {
+
+    private EventSink previous;
+
+    @BeforeAll
+    void setup() {
+        previous = EventSinks.current();
+        EventSinks.use(EventSink.NO_OP);
+    }
+
+    @AfterAll
+    void tearDown() {
+        EventSinks.use(previous);
+    }
+
+    @Test
+    @DisplayName("should cook every order exactly once across yielding consumers")
+    void testYield() {
+        assertEveryOrderOnce(OrderIntake.WaitStrategy.YIELD);
+    }
+
+    @Test
+    @DisplayName("should cook every order exactly once across parking consumers")
+    void testPark() {
+        assertEveryOrderOnce(OrderIntake.WaitStrategy.PARK); //BUSY_SPIN is left out, it needs a core per consumer
+    }
+
+    @Test
+    @DisplayName("should refuse offers once the ring is full")
+    void testFull() {
+        CountDownLatch oven = new CountDownLatch(1);
+        OrderIntake intake = new OrderIntake(type -> {
+            try {
+                oven.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }, pizza -> {
+        }, 4, 1, OrderIntake.WaitStrategy.PARK, 1);
+
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            accepted += intake.offer("cheese") ? 1 : 0;
+        }
+
+        assertTrue(accepted == 4 || accepted == 5, "4 in the ring, maybe 1 held by the consumer: " + accepted);
+        oven.countDown();
+        intake.close();
+        assertEquals(accepted, intake.cooked());
+        assertThrows(IllegalStateException.class, () -> intake.submit("cheese"));
+    }
+
+    @Test
+    @DisplayName("an Error while cooking should count as failed and keep the consumer working")
+    void testErrorKeepsConsumer() {
+        PunePizzaStore store = new PunePizzaStore();
+        OrderIntake intake = new OrderIntake(type -> {
+            if (type.equals("tandoori")) {
+                throw new AssertionError("oven broke");
+            }
+            return store.orderPizza(type);
+        }, pizza -> {
+        }, 4, 1, OrderIntake.WaitStrategy.PARK, 1);
+
+        for (int i = 0; i < 100; i++) {
+            intake.submit(i % 2 == 0 ? "tandoori" : "cheese"); //blocks forever on the full ring once the consumer dies
+        }
+        intake.close();
+
+        assertEquals(50, intake.cooked());
+        assertEquals(50, intake.failed());
+    }
+
+    @Test
+    @DisplayName("orders racing with close should be cooked or rejected, never lost")
+    void testCloseRace() throws InterruptedException {
+        PunePizzaStore store = new PunePizzaStore();
+        for (int round = 0; round < 50; round++) {
+            OrderIntake intake = new OrderIntake(store::orderPizza, pizza -> {
+            }, 64, 2, OrderIntake.WaitStrategy.YIELD, 8);
+            long[] accepted = new long[1];
+            Thread producer = new Thread(() -> {
+                try {
+                    while (true) {
+                        intake.submit("cheese");
+                        accepted[0]++;
+                    }
+                } catch (IllegalStateException closed) {
+                    //the intake is closed, orders accepted before must all be cooked
+                }
+            });
+            producer.start();
+            Thread.sleep(1);
+            intake.close();
+            producer.join();
+
+            assertEquals(accepted[0], intake.cooked());
+        }
+    }
+
+    private static void assertEveryOrderOnce(OrderIntake.WaitStrategy waitStrategy) {
+        PunePizzaStore store = new PunePizzaStore();
+        ConcurrentHashMap<String, LongAdder> delivered = new ConcurrentHashMap<>();
+        OrderIntake intake = new OrderIntake(store::orderPizza,
+                pizza -> delivered.computeIfAbsent(pizza.getType(), type -> new LongAdder()).increment(),
+                64, 3, waitStrategy, 8);
+
+        for (int i = 0; i < 100_000; i++) {
+            intake.submit(i % 4 == 0 ? "tandoori" : "cheese");
+        }
+        intake.submit("hawaiian");
+        intake.close();
+
+        assertEquals(100_000, intake.cooked());
+        assertEquals(1, intake.failed());
+        assertEquals(25_000, delivered.get("pune tandoori").sum());
+        assertEquals(75_000, delivered.get("pune cheese").sum());
+    }
+}
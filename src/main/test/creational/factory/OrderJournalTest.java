@@ -0,0 +1,170 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderJournalTest {
+
+    private static final int SEGMENT_BYTES = 4096; //128 records per segment
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("should replay orders in order across segments")
+    void testReplayAcrossSegments() throws IOException {
+        try (OrderJournal journal = OrderJournal.open(dir, SEGMENT_BYTES, OrderJournal.Durability.ASYNC)) {
+            for (int i = 0; i < 300; i++) {
+                journal.append(i % 2 == 0 ? "cheese" : "tandoori");
+            }
+        }
+
+        List<String> replayed = new ArrayList<>();
+        assertEquals(300, OrderJournal.replay(dir, replayed::add));
+
+        assertEquals(300, replayed.size());
+        assertEquals("cheese", replayed.get(0));
+        assertEquals("tandoori", replayed.get(299));
+        assertTrue(Files.exists(dir.resolve("orders-000002.journal")));
+    }
+
+    @Test
+    @DisplayName("should append after the existing records when reopened")
+    void testReopen() throws IOException {
+        try (OrderJournal journal = OrderJournal.open(dir, SEGMENT_BYTES, OrderJournal.Durability.ASYNC)) {
+            journal.append("cheese");
+        }
+        try (OrderJournal journal = OrderJournal.open(dir, SEGMENT_BYTES, OrderJournal.Durability.ASYNC)) {
+            assertEquals(1, journal.size());
+            journal.append("tandoori");
+        }
+
+        List<String> replayed = new ArrayList<>();
+        OrderJournal.replay(dir, replayed::add);
+        assertEquals(List.of("cheese", "tandoori"), replayed);
+        assertThrows(IllegalStateException.class,
+                () -> OrderJournal.open(dir, 2 * SEGMENT_BYTES, OrderJournal.Durability.ASYNC));
+    }
+
+    @Test
+    @DisplayName("should share forces between concurrent orders with group commit")
+    void testGroupCommit() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CyclicBarrier appended = new CyclicBarrier(8);
+        try (OrderJournal journal = OrderJournal.open(dir, SEGMENT_BYTES, OrderJournal.Durability.GROUP_COMMIT)) {
+            List<Future<?>> orders = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                orders.add(executor.submit(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        long sequence = journal.append("cheese");
+                        appended.await(); //every order of the round is appended before any commits
+                        journal.commit(sequence);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> order : orders) {
+                order.get();
+            }
+
+            assertEquals(800, journal.size());
+            //the first commit of a round forces all 8 records, the other 7 find them durable
+            assertTrue(journal.forces() <= 100, "forces: " + journal.forces());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(800, OrderJournal.replay(dir, type -> {
+        }));
+    }
+
+    @Test
+    @DisplayName("should reject types which do not fit a record")
+    void testTypeTooLong() throws IOException {
+        try (OrderJournal journal = OrderJournal.open(dir, SEGMENT_BYTES, OrderJournal.Durability.ASYNC)) {
+            assertThrows(IllegalArgumentException.class, () -> journal.append("x".repeat(OrderJournal.MAX_TYPE_BYTES + 1)));
+            assertThrows(IllegalArgumentException.class, () -> journal.append(""));
+            assertEquals(0, journal.size());
+        }
+    }
+
+    @Test
+    @DisplayName("should journal completed orders of a store and re-drive another store from it")
+    void testStoreReplay() throws IOException {
+        EventSink previous = EventSinks.current();
+        EventSinks.use(EventSink.NO_OP);
+        try (OrderJournal journal = OrderJournal.open(dir, SEGMENT_BYTES, OrderJournal.Durability.GROUP_COMMIT)) {
+            PunePizzaStore store = new PunePizzaStore();
+            store.enableJournal(journal);
+            store.orderPizza("cheese");
+            store.orderPizza("tandoori");
+            assertThrows(IllegalArgumentException.class, () -> store.orderPizza("hawaiian"));
+            assertEquals(2, journal.size());
+
+            List<String> delivered = new ArrayList<>();
+            PunePizzaStore replica = new PunePizzaStore();
+            OrderJournal.replay(dir, type -> delivered.add(replica.orderPizza(type).getType()));
+            assertEquals(List.of("pune cheese", "pune tandoori"), delivered);
+        } finally {
+            EventSinks.use(previous);
+        }
+    }
+
+    @Test
+    @DisplayName("should journal the orders of a batch once the whole batch is cooked")
+    void testBatchJournaled() throws IOException, InterruptedException {
+        EventSink previous = EventSinks.current();
+        EventSinks.use(EventSink.NO_OP);
+        try (OrderJournal journal = OrderJournal.open(dir, SEGMENT_BYTES, OrderJournal.Durability.ASYNC)) {
+            PunePizzaStore store = new PunePizzaStore();
+            store.enableJournal(journal);
+            store.orderPizzas(List.of("cheese", "tandoori"));
+            assertThrows(IllegalArgumentException.class, () -> store.orderPizzas(List.of("cheese", "hawaiian")));
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.orderPizzas(List.of("cheese", "x".repeat(OrderJournal.MAX_TYPE_BYTES + 1))));
+            assertEquals(2, journal.size());
+            assertEquals(4, store.kitchen().pizzas(Kitchen.Stage.PREPARE)); //the oversized batch never reached the kitchen
+        } finally {
+            EventSinks.use(previous);
+        }
+    }
+
+    @Test
+    @DisplayName("should reject a type the journal cannot hold before cooking it")
+    void testTypeCheckedBeforeCooking() throws IOException {
+        EventSink previous = EventSinks.current();
+        EventSinks.use(EventSink.NO_OP);
+        AtomicInteger cooked = new AtomicInteger();
+        try (OrderJournal journal = OrderJournal.open(dir, SEGMENT_BYTES, OrderJournal.Durability.ASYNC)) {
+            BasePizzaStore store = new BasePizzaStore() {
+                @Override
+                public Pizza getPizza(String type) {
+                    cooked.incrementAndGet();
+                    return new PuneCheesePizza(); //every type is on this menu
+                }
+            }.enableJournal(journal);
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.orderPizza("x".repeat(OrderJournal.MAX_TYPE_BYTES + 1)));
+            assertEquals(0, cooked.get());
+            assertEquals(0, journal.size());
+        } finally {
+            EventSinks.use(previous);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package creational.factory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderMetricsTest {
+
+    @Test
+    @DisplayName("histogram percentiles should be within bucket precision")
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertTrue(snapshot.getP50() >= 500 && snapshot.getP50() <= 500 * 1.125);
+        assertTrue(snapshot.getP99() >= 990 && snapshot.getP99() <= 990 * 1.125);
+        assertTrue(snapshot.getMax() >= 1000 && snapshot.getMax() <= 1000 * 1.125);
+    }
+
+    @Test
+    @DisplayName("plain histogram should report what the striped one reports")
+    void testPlainHistogram() {
+        LatencyHistogram striped = new LatencyHistogram();
+        PlainLatencyHistogram plain = new PlainLatencyHistogram();
+        PlainLatencyHistogram other = new PlainLatencyHistogram();
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            striped.record(nanos * 1_000);
+            (nanos % 2 == 0 ? plain : other).record(nanos * 1_000);
+        }
+        plain.add(other);
+
+        LatencySnapshot expected = striped.snapshot();
+        LatencySnapshot actual = plain.snapshot();
+
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getP50(), actual.getP50());
+        assertEquals(expected.getP999(), actual.getP999());
+        assertEquals(expected.getMax(), actual.getMax());
+    }
+
+    @Test
+    @DisplayName("should count orders per pizza type and rejected orders")
+    void testOrderCounts() {
+        OrderMetrics metrics = new OrderMetrics("pune", null);
+        PizzaStoreFactory factory = new PizzaStoreFactory();
+
+        metrics.order("cheese", factory::getPizza);
+        metrics.order("cheese", factory::getPizza);
+        metrics.order("tandoori", factory::getPizza);
+        assertThrows(IllegalArgumentException.class, () -> metrics.order("hawaiian", factory::getPizza));
+
+        assertEquals(2, metrics.metrics("cheese").getOrders());
+        assertEquals(2, metrics.metrics("cheese").getBakeLatency().getCount());
+        assertEquals(1, metrics.metrics("tandoori").getOrders());
+        assertNull(metrics.metrics("hawaiian"));
+        assertEquals(1, metrics.rejected());
+    }
+
+    @Test
+    @DisplayName("should publish pizza type metrics over JMX")
+    void testJmx() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        OrderMetrics metrics = new OrderMetrics("pune", server);
+
+        metrics.order("cheese", new PizzaStoreFactory()::getPizza);
+
+        ObjectName name = new ObjectName("creational.factory:type=PizzaMetrics,store=\"pune\",pizza=\"cheese\"");
+        assertEquals(1L, server.getAttribute(name, "Orders"));
+        CompositeData latency = (CompositeData) server.getAttribute(name, "OrderLatency");
+        assertEquals(1L, latency.get("count"));
+        metrics.close();
+    }
+
+    @Test
+    @DisplayName("should publish rejected and failed orders of the store over JMX")
+    void testJmxFailures() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        OrderMetrics metrics = new OrderMetrics("pune", server);
+        Pizza burnt = new CheezePizza() {
+            @Override
+            public void bake() {
+                throw new IllegalStateException("oven is off");
+            }
+        };
+
+        assertThrows(IllegalArgumentException.class, () -> metrics.order("hawaiian", new PizzaStoreFactory()::getPizza));
+        assertThrows(IllegalStateException.class, () -> metrics.order("cheese", type -> burnt));
+
+        ObjectName store = new ObjectName("creational.factory:type=StoreMetrics,store=\"pune\"");
+        ObjectName cheese = new ObjectName("creational.factory:type=PizzaMetrics,store=\"pune\",pizza=\"cheese\"");
+        assertEquals(1L, server.getAttribute(store, "Rejected"));
+        assertEquals(1L, server.getAttribute(store, "Failed"));
+        assertEquals(1L, server.getAttribute(cheese, "Failed"));
+        assertEquals(0L, server.getAttribute(cheese, "Orders"));
+        metrics.close();
+    }
+
+    @Test
+    @DisplayName("should refuse a second store of the same name until the first one is closed")
+    void testClose() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        OrderMetrics first = new OrderMetrics("pune", server);
+        first.order("cheese", new PizzaStoreFactory()::getPizza);
+
+        assertThrows(IllegalStateException.class, () -> new OrderMetrics("pune", server));
+
+        first.close();
+        assertTrue(server.queryNames(new ObjectName("creational.factory:store=\"pune\",*"), null).isEmpty());
+        OrderMetrics second = new OrderMetrics("pune", server);
+        second.order("cheese", new PizzaStoreFactory()::getPizza);
+        ObjectName name = new ObjectName("creational.factory:type=PizzaMetrics,store=\"pune\",pizza=\"cheese\"");
+        assertEquals(1L, server.getAttribute(name, "Orders")); //the new store's numbers, not the old ones
+        second.close();
+    }
+}
@@ -0,0 +1,143 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ParallelIngredientFactoryTest {
+
+    private EventSink previous;
+
+    @BeforeAll
+    void setup() {
+        previous = EventSinks.current();
+        EventSinks.use(EventSink.NO_OP);
+    }
+
+    @AfterAll
+    void restore() {
+        EventSinks.use(previous);
+    }
+
+    @Test
+    @DisplayName("should source all ingredients at the same time")
+    void testConcurrent() {
+        CountDownLatch allStarted = new CountDownLatch(3); //sourcing them one after the other never gets past it
+        PizzaIngredientFactory factory = new ParallelIngredientFactory(new MumbaiPizzaIngredientFactory() {
+            @Override
+            public Dough createDough() {
+                allStarted.countDown();
+                await(allStarted);
+                return super.createDough();
+            }
+
+            @Override
+            public Cheese createCheese() {
+                allStarted.countDown();
+                await(allStarted);
+                return super.createCheese();
+            }
+
+            @Override
+            public Sauce createSauce() {
+                allStarted.countDown();
+                await(allStarted);
+                return super.createSauce();
+            }
+        }, Duration.ofSeconds(10));
+
+        Ingredients ingredients = factory.createIngredients();
+
+        assertInstanceOf(ThickCrustDough.class, ingredients.dough());
+        assertInstanceOf(ReggianoCheese.class, ingredients.cheese());
+        assertInstanceOf(PlumTomatoSauce.class, ingredients.sauce());
+    }
+
+    @Test
+    @DisplayName("should cancel the other ingredients when one fails")
+    void testFailure() {
+        CountDownLatch doughStarted = new CountDownLatch(1);
+        CountDownLatch doughCancelled = new CountDownLatch(1);
+        PizzaIngredientFactory factory = new ParallelIngredientFactory(new MumbaiPizzaIngredientFactory() {
+            @Override
+            public Dough createDough() {
+                doughStarted.countDown();
+                sleepUntilCancelled(doughCancelled);
+                return super.createDough();
+            }
+
+            @Override
+            public Cheese createCheese() {
+                await(doughStarted);
+                throw new IllegalStateException("out of cheese");
+            }
+        }, Duration.ofSeconds(10));
+
+        IngredientSourcingException e = assertThrows(IngredientSourcingException.class, factory::createIngredients);
+
+        assertEquals("cannot source cheese", e.getMessage());
+        assertEquals("out of cheese", e.getCause().getMessage());
+        assertEquals(0, doughCancelled.getCount()); //joined before createIngredients() returned
+    }
+
+    @Test
+    @DisplayName("should give up on an ingredient after its timeout")
+    void testTimeout() {
+        CountDownLatch sauceCancelled = new CountDownLatch(1);
+        PizzaIngredientFactory factory = new ParallelIngredientFactory(new MumbaiPizzaIngredientFactory() {
+            @Override
+            public Sauce createSauce() {
+                sleepUntilCancelled(sauceCancelled);
+                return super.createSauce();
+            }
+        }, Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofMillis(50));
+
+        long start = System.nanoTime();
+        IngredientSourcingException e = assertThrows(IngredientSourcingException.class, factory::createIngredients);
+
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertTrue(e.getMessage().startsWith("sauce not sourced within"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, sauceCancelled.getCount());
+    }
+
+    @Test
+    @DisplayName("should prepare pizza with parallel ingredients")
+    void testPrepare() {
+        Pizza pizza = new MumbaiCheesePizza(new ParallelIngredientFactory(
+                PizzaIngredientFactories.shared().forRegion("mumbai"), Duration.ofSeconds(1)));
+
+        assertDoesNotThrow(pizza::prepare);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("timed out waiting for the other ingredients");
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleepUntilCancelled(CountDownLatch cancelled) {
+        try {
+            Thread.sleep(60_000);
+        } catch (InterruptedException e) {
+            cancelled.countDown();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
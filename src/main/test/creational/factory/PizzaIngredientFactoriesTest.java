@@ -0,0 +1,141 @@
+package creational.factory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PizzaIngredientFactoriesTest {
+
+    @Test
+    @DisplayName("should reuse ingredient factory per region")
+    void testFactoryPerRegion() {
+        PizzaIngredientFactories factories = PizzaIngredientFactories.shared();
+
+        assertSame(factories.forRegion("mumbai"), factories.forRegion("mumbai"));
+        assertNotSame(factories.forRegion("mumbai"), factories.forRegion("delhi"));
+        assertThrows(IllegalArgumentException.class, () -> factories.forRegion("atlantis"));
+    }
+
+    @Test
+    @DisplayName("should share stateless ingredients")
+    void testSharedIngredients() {
+        PizzaIngredientFactory factory = PizzaIngredientFactories.shared().forRegion("mumbai");
+
+        assertInstanceOf(ThickCrustDough.class, factory.createDough());
+        assertSame(factory.createDough(), factory.createDough());
+        assertSame(factory.createCheese(), factory.createCheese());
+        assertSame(factory.createSauce(), factory.createSauce());
+    }
+
+    @Test
+    @DisplayName("should create stateful ingredients every time")
+    void testStatefulIngredients() {
+        PizzaIngredientFactory factory = new CachingIngredientFactory(new MumbaiPizzaIngredientFactory() {
+            @Override
+            public Dough createDough() {
+                return new Dough() { //not a SharedIngredient
+                };
+            }
+        });
+
+        assertNotSame(factory.createDough(), factory.createDough());
+        assertSame(factory.createCheese(), factory.createCheese());
+    }
+
+    @Test
+    @DisplayName("should keep the factory of a region other regions are used after")
+    void testRegionsKept() {
+        PizzaIngredientFactories factories = PizzaIngredientFactories.newRegistry();
+
+        PizzaIngredientFactory mumbai = factories.forRegion("mumbai");
+        factories.forRegion("delhi");
+        factories.swapRegion("delhi", new DelhiPizzaIngredientFactory());
+
+        assertSame(mumbai, factories.forRegion("mumbai"));
+        assertNotSame(mumbai, PizzaIngredientFactories.newRegistry().forRegion("mumbai"));
+    }
+
+    @Test
+    @DisplayName("should switch a region to a new factory for the stores already holding it")
+    void testSwapRegion() {
+        PizzaIngredientFactories factories = PizzaIngredientFactories.newRegistry();
+        PizzaIngredientFactory mumbai = factories.forRegion("mumbai");
+        Dough before = mumbai.createDough();
+        Dough thinCrust = new ThinCrustDough();
+
+        PizzaIngredientFactory previous = factories.swapRegion("mumbai", new MumbaiPizzaIngredientFactory() {
+            @Override
+            public Dough createDough() {
+                return thinCrust;
+            }
+        });
+
+        assertInstanceOf(MumbaiPizzaIngredientFactory.class, previous);
+        assertSame(mumbai, factories.forRegion("mumbai"));
+        assertSame(thinCrust, mumbai.createDough());
+        assertNotSame(before, mumbai.createDough());
+        assertThrows(IllegalArgumentException.class, () -> factories.swapRegion("atlantis", previous));
+
+        Dough delhiDough = new ThickCrustDough();
+        factories.swapRegion("delhi", new DelhiPizzaIngredientFactory() { //not used before
+            @Override
+            public Dough createDough() {
+                return delhiDough;
+            }
+        });
+        assertSame(delhiDough, factories.forRegion("delhi").createDough());
+    }
+
+    @Test
+    @DisplayName("bounded registry should evict the factory of a region, not what stores hold")
+    void testBoundedRegions() {
+        List<PizzaIngredientFactory> evicted = new ArrayList<>();
+        PizzaIngredientFactories factories = PizzaIngredientFactories.bounded(1, evicted::add);
+
+        PizzaIngredientFactory mumbai = factories.forRegion("mumbai");
+        PizzaIngredientFactory delhi = factories.forRegion("delhi"); //evicts mumbai's factory
+        assertEquals(1, evicted.size());
+        assertInstanceOf(MumbaiPizzaIngredientFactory.class, evicted.get(0));
+
+        assertInstanceOf(ThickCrustDough.class, mumbai.createDough()); //recreated, evicts delhi's
+        assertEquals(2, evicted.size());
+        assertInstanceOf(DelhiPizzaIngredientFactory.class, evicted.get(1));
+        assertSame(mumbai, factories.forRegion("mumbai"));
+        assertSame(delhi, factories.forRegion("delhi"));
+    }
+
+    @Test
+    @DisplayName("bounded registry should recreate an evicted region from its last swap")
+    void testSwapEvictedRegion() {
+        List<PizzaIngredientFactory> evicted = new ArrayList<>();
+        PizzaIngredientFactories factories = PizzaIngredientFactories.bounded(1, evicted::add);
+        PizzaIngredientFactory mumbai = factories.forRegion("mumbai");
+        Dough thinCrust = new ThinCrustDough();
+        PizzaIngredientFactory previous = factories.swapRegion("mumbai", () -> new MumbaiPizzaIngredientFactory() {
+            @Override
+            public Dough createDough() {
+                return thinCrust;
+            }
+        });
+        assertInstanceOf(MumbaiPizzaIngredientFactory.class, previous);
+
+        PizzaIngredientFactory delhi = factories.forRegion("delhi"); //evicts the swapped in factory
+        assertEquals(1, evicted.size());
+        assertNotSame(previous, evicted.get(0));
+
+        assertSame(thinCrust, mumbai.createDough()); //a new instance from the swap's source, evicts delhi
+        assertEquals(2, evicted.size());
+        Dough delhiDough = new ThickCrustDough();
+        assertNull(factories.swapRegion("delhi", () -> new DelhiPizzaIngredientFactory() {
+            @Override
+            public Dough createDough() {
+                return delhiDough;
+            }
+        }), "evicted, its factory went to onEvict");
+        assertSame(delhiDough, delhi.createDough());
+    }
+}
@@ -0,0 +1,56 @@
+package creational.factory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PizzaMenuTest {
+
+    @Test
+    @DisplayName("should create pizza of registered type")
+    void testCreate() {
+        PizzaMenu menu = PizzaMenu.builder()
+                .add("cheese", CheezePizza::new)
+                .add("tandoori", IndianTandoori::new)
+                .build();
+
+        assertInstanceOf(CheezePizza.class, menu.create("cheese"));
+        assertInstanceOf(IndianTandoori.class, menu.create("tandoori"));
+        assertNotSame(menu.create("cheese"), menu.create("cheese"));
+    }
+
+    @Test
+    @DisplayName("should fail fast on unknown pizza type")
+    void testUnknownType() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new PizzaStoreFactory().getPizza("hawaiian"));
+
+        assertEquals("Unknown pizza type: hawaiian", exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new PunePizzaStore().orderPizza("hawaiian"));
+    }
+
+    @Test
+    @DisplayName("should reject duplicate pizza type")
+    void testDuplicateType() {
+        PizzaMenu.Builder builder = PizzaMenu.builder().add("cheese", CheezePizza::new);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.add("cheese", IndianTandoori::new));
+    }
+
+    @Test
+    @DisplayName("should resolve every type of a large menu")
+    void testLargeMenu() {
+        PizzaMenu.Builder builder = PizzaMenu.builder();
+        for (int i = 0; i < 500; i++) {
+            builder.add("pizza-" + i, CheezePizza::new);
+        }
+        PizzaMenu menu = builder.build();
+
+        assertEquals(500, menu.size());
+        for (int i = 0; i < 500; i++) {
+            assertTrue(menu.offers("pizza-" + i));
+        }
+        assertFalse(menu.offers("pizza-500"));
+    }
+}
@@ -0,0 +1,103 @@
+package creational.factory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PizzaPoolTest {
+
+    @Test
+    @DisplayName("pooled store should recycle delivered pizza")
+    void testRecycle() {
+        BasePizzaStore store = new PunePizzaStore().enablePooling(4);
+
+        Pizza pizza = store.orderPizza("cheese");
+        store.deliver(pizza);
+
+        assertSame(pizza, store.orderPizza("cheese"));
+        assertNotSame(pizza, store.orderPizza("cheese")); //nothing free anymore
+        assertInstanceOf(PuneTandooriPizza.class, store.orderPizza("tandoori"));
+    }
+
+    @Test
+    @DisplayName("pooled pizza should be reset on release")
+    void testReset() {
+        PizzaMenu menu = PizzaMenu.builder().add("cheese", CountingPizza::new).build();
+        PizzaPool pool = new PizzaPool(menu, 4);
+
+        CountingPizza pizza = (CountingPizza) pool.acquire("cheese");
+        pool.release(pizza);
+
+        assertEquals(1, pizza.resets);
+    }
+
+    @Test
+    @DisplayName("should reject double release and foreign pizza")
+    void testInvalidRelease() {
+        PizzaStore store = new PizzaStore(new PizzaStoreFactory()).enablePooling(4);
+        Pizza pizza = store.orderPizza("cheese");
+        store.deliver(pizza);
+
+        assertThrows(IllegalStateException.class, () -> store.deliver(pizza));
+        assertThrows(IllegalArgumentException.class, () -> store.deliver(new CheezePizza()));
+    }
+
+    @Test
+    @DisplayName("store without menu should not support pooling")
+    void testUnsupportedStore() {
+        BasePizzaStore store = new BasePizzaStore() {
+            @Override
+            public Pizza getPizza(String type) {
+                return new CheezePizza();
+            }
+        };
+
+        assertThrows(UnsupportedOperationException.class, () -> store.enablePooling(4));
+    }
+
+    @Test
+    @DisplayName("should stop tracking pizzas of failed orders and of virtual threads")
+    void testNoLeak() throws Exception {
+        PizzaMenu menu = PizzaMenu.builder()
+                .add("cheese", CountingPizza::new)
+                .add("burnt", () -> new CountingPizza() {
+                    @Override
+                    public void prepare() {
+                        throw new IllegalStateException("burnt");
+                    }
+                })
+                .build();
+        PizzaPool pool = new PizzaPool(menu, 4);
+        OrderPipeline orders = new OrderPipeline(menu::create, () -> menu);
+        orders.enablePooling(4);
+
+        assertThrows(IllegalStateException.class, () -> orders.order("burnt"));
+        assertEquals(0, orders.pool().tracked());
+        Thread virtual = Thread.ofVirtual().start(() -> pool.release(pool.acquire("cheese")));
+        virtual.join();
+
+        assertEquals(0, pool.tracked());
+        Pizza pizza = orders.order("cheese");
+        orders.deliver(pizza);
+        assertSame(pizza, orders.order("cheese")); //platform threads still recycle
+    }
+
+    static class CountingPizza extends Pizza {
+        int resets;
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public String getType() {
+            return "counting";
+        }
+
+        @Override
+        protected void reset() {
+            resets++;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package creational.factory;
+
+import creational.EventSink;
+import creational.EventSinks;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class StoreRouterTest {
+
+    private EventSink previous;
+
+    @BeforeAll
+    void setup() {
+        previous = EventSinks.current();
+        EventSinks.use(EventSink.NO_OP);
+    }
+
+    @AfterAll
+    void tearDown() {
+        EventSinks.use(previous);
+    }
+
+    @Test
+    @DisplayName("should cook every order and fail unknown types through the future")
+    void testOrders() {
+        try (StoreRouter router = new StoreRouter(4, () -> new PunePizzaStore()::orderPizza, StoreRouter.Routing.leastLoaded())) {
+            List<CompletableFuture<Pizza>> pizzas = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                pizzas.add(router.order(i % 2 == 0 ? "cheese" : "tandoori"));
+            }
+
+            assertEquals("pune cheese", pizzas.get(0).join().getType());
+            assertEquals("pune tandoori", pizzas.get(999).join().getType());
+            CompletionException exception = assertThrows(CompletionException.class, () -> router.order("hawaiian").join());
+            assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        }
+    }
+
+    @Test
+    @DisplayName("should keep every type on one shard when hashing without stealing")
+    void testHashByType() {
+        try (StoreRouter router = new StoreRouter(8, () -> new PunePizzaStore()::orderPizza, StoreRouter.Routing.hashByType(), false)) {
+            for (int i = 0; i < 100; i++) {
+                router.order("cheese").join();
+            }
+
+            int shardsUsed = 0;
+            for (int shard = 0; shard < router.shards(); shard++) {
+                shardsUsed += router.cooked(shard) > 0 ? 1 : 0;
+            }
+            assertEquals(1, shardsUsed);
+            assertEquals(0, router.stolen());
+        }
+    }
+
+    @Test
+    @DisplayName("should let idle shards steal orders queued behind a slow one")
+    void testStealing() throws InterruptedException {
+        CountDownLatch oven = new CountDownLatch(1);
+        PunePizzaStore store = new PunePizzaStore();
+        try (StoreRouter router = new StoreRouter(2, () -> type -> {
+            if (type.equals("tandoori")) {
+                await(oven); //slow order, holds its shard
+            }
+            return store.orderPizza(type);
+        }, (type, r) -> 0)) { //everything to shard 0
+            CompletableFuture<Pizza> slow = router.order("tandoori");
+            CompletableFuture<Pizza> fast = router.order("cheese");
+
+            assertEquals("pune cheese", fast.orTimeout(10, TimeUnit.SECONDS).join().getType());
+            assertFalse(slow.isDone());
+            oven.countDown();
+            assertEquals("pune tandoori", slow.join().getType());
+            assertEquals(1, router.stolen());
+        }
+    }
+
+    @Test
+    @DisplayName("should route to the shard with the fewest waiting orders")
+    void testLeastLoaded() throws InterruptedException {
+        CountDownLatch oven = new CountDownLatch(1);
+        PunePizzaStore store = new PunePizzaStore();
+        StoreRouter router = new StoreRouter(2, () -> type -> {
+            await(oven);
+            return store.orderPizza(type);
+        }, StoreRouter.Routing.leastLoaded(), false);
+        try (router) {
+            router.order("cheese"); //shard 0, picked up and held in the oven
+            while (router.pending(0) > 0) {
+                Thread.onSpinWait();
+            }
+            router.order("cheese"); //shard 0 again, nothing waiting there yet
+            router.order("cheese"); //shard 1, one waiting on shard 0
+            oven.countDown();
+        } //close() waits for all three
+
+        assertEquals(2, router.cooked(0));
+        assertEquals(1, router.cooked(1));
+    }
+
+    @Test
+    @DisplayName("an Error while cooking should fail its order and keep the shard working")
+    void testErrorKeepsWorker() {
+        PunePizzaStore store = new PunePizzaStore();
+        try (StoreRouter router = new StoreRouter(1, () -> type -> {
+            if (type.equals("tandoori")) {
+                throw new AssertionError("oven broke");
+            }
+            return store.orderPizza(type);
+        }, (type, r) -> 0)) {
+            CompletionException exception = assertThrows(CompletionException.class, () -> router.order("tandoori").join());
+            assertInstanceOf(AssertionError.class, exception.getCause());
+            assertEquals("pune cheese", router.order("cheese").orTimeout(10, TimeUnit.SECONDS).join().getType());
+        }
+    }
+
+    @Test
+    @DisplayName("orders racing with close should be cooked or rejected, never lost")
+    void testCloseRace() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            StoreRouter router = new StoreRouter(2, () -> new PunePizzaStore()::orderPizza, StoreRouter.Routing.hashByType(), round % 2 == 0);
+            List<CompletableFuture<Pizza>> accepted = new ArrayList<>();
+            Thread client = new Thread(() -> {
+                try {
+                    while (true) {
+                        accepted.add(router.order("cheese"));
+                    }
+                } catch (IllegalStateException closed) {
+                    //the router is closed, orders accepted before must all complete
+                }
+            });
+            client.start();
+            Thread.sleep(1);
+            router.close();
+            client.join();
+
+            for (CompletableFuture<Pizza> pizza : accepted) {
+                assertEquals("pune cheese", pizza.get(10, TimeUnit.SECONDS).getType());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("idle workers should park until an order arrives")
+    void testIdleWorkersPark() throws InterruptedException {
+        try (StoreRouter router = new StoreRouter(2, () -> new PunePizzaStore()::orderPizza, StoreRouter.Routing.leastLoaded())) {
+            router.order("cheese").join();
+            Thread.sleep(50);
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().startsWith("store-shard-")) {
+                    assertEquals(Thread.State.WAITING, thread.getState(), thread.getName()); //not TIMED_WAITING
+                }
+            }
+            assertEquals("pune tandoori", router.order("tandoori").join().getType());
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}